@@ -0,0 +1,121 @@
+package com.bloghive.apigateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Passive health of every backend instance the gateway has routed to.
+ *
+ * Tracks in-flight requests and a moving average of response time per
+ * instance, and ejects an instance for a while after a run of consecutive
+ * connection failures, so a dead pod stops getting traffic long before
+ * Eureka evicts it.
+ *
+ * Instances that drop out of discovery are forgotten the next time the load
+ * balancer picks from the refreshed list, so stats for recycled pods and
+ * ports don't pile up.
+ */
+@Component
+public class InstanceHealthRegistry {
+
+    // Weight of the newest sample in the moving average
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    // The last discovery list seen per service, to prune only when it changes
+    private final Map<String, List<ServiceInstance>> listed = new ConcurrentHashMap<>();
+
+    @Value("${gateway.loadbalancer.ejection.consecutive-failures:3}")
+    private int consecutiveFailures;
+
+    @Value("${gateway.loadbalancer.ejection.duration-ms:30000}")
+    private long ejectionMillis;
+
+    public boolean isEjected(ServiceInstance instance) {
+        InstanceStats s = stats.get(key(instance));
+        return s != null && s.ejectedUntil > System.nanoTime();
+    }
+
+    /**
+     * Lower is better. Instances we know nothing about score zero so they get tried.
+     */
+    public double score(ServiceInstance instance) {
+        InstanceStats s = stats.get(key(instance));
+        if (s == null) {
+            return 0;
+        }
+        return s.averageLatencyNanos * (s.inFlight.get() + 1);
+    }
+
+    /**
+     * Drops the stats of every instance of the service that is not in the
+     * given discovery list. Cheap to call on every choice: the load balancer
+     * cache hands out the same list until it refreshes.
+     */
+    public void retainOnly(String serviceId, List<ServiceInstance> instances) {
+        if (listed.put(serviceId, instances) == instances) {
+            return;
+        }
+        String prefix = serviceId + "@";
+        Set<String> current = instances.stream().map(InstanceHealthRegistry::key).collect(Collectors.toSet());
+        stats.keySet().removeIf(k -> k.startsWith(prefix) && !current.contains(k));
+    }
+
+    public void onStart(ServiceInstance instance) {
+        statsFor(instance).inFlight.incrementAndGet();
+    }
+
+    public void onSuccess(ServiceInstance instance, long latencyNanos) {
+        InstanceStats s = stats.get(key(instance));
+        if (s == null) {
+            // Left discovery while the request was in flight
+            return;
+        }
+        s.inFlight.decrementAndGet();
+        synchronized (s) {
+            s.failures = 0;
+            s.averageLatencyNanos = s.averageLatencyNanos == 0
+                    ? latencyNanos
+                    : EWMA_ALPHA * latencyNanos + (1 - EWMA_ALPHA) * s.averageLatencyNanos;
+        }
+    }
+
+    public void onFailure(ServiceInstance instance) {
+        InstanceStats s = stats.get(key(instance));
+        if (s == null) {
+            return;
+        }
+        s.inFlight.decrementAndGet();
+        synchronized (s) {
+            if (++s.failures >= consecutiveFailures) {
+                s.ejectedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+                s.failures = 0;
+            }
+        }
+    }
+
+    private InstanceStats statsFor(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), k -> new InstanceStats());
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static final class InstanceStats {
+        final AtomicInteger inFlight = new AtomicInteger();
+        int failures;
+        volatile double averageLatencyNanos;
+        volatile long ejectedUntil;
+    }
+}
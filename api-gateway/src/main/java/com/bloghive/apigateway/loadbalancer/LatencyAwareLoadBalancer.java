@@ -0,0 +1,88 @@
+package com.bloghive.apigateway.loadbalancer;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks an instance by "power of two choices": two random healthy instances
+ * are compared and the one with the lower latency-times-load score wins.
+ * That steers traffic away from slow or busy instances without the herding
+ * you get from always choosing the single best one.
+ *
+ * Ejected instances are skipped unless every instance is ejected, in which
+ * case all are considered again rather than failing the request outright.
+ * Instances missing from the current discovery list are dropped from the
+ * registry.
+ *
+ * Each choice is observed as "gateway.loadbalancer.choose", so a trace shows
+ * how long the instance lookup took and which instance was picked.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceHealthRegistry registry;
+    private final ObservationRegistry observationRegistry;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+            InstanceHealthRegistry registry, ObservationRegistry observationRegistry) {
+        this.supplierProvider = supplierProvider;
+        this.registry = registry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return Mono.deferContextual(context -> {
+            // The gateway's request observation travels in the Reactor context
+            Observation observation = Observation.createNotStarted("gateway.loadbalancer.choose", observationRegistry)
+                    .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                    .lowCardinalityKeyValue("service", String.valueOf(supplier.getServiceId()))
+                    .start();
+            return supplier.get(request).next().map(this::choose)
+                    .doOnNext(response -> {
+                        if (response.hasServer()) {
+                            observation.highCardinalityKeyValue("instance", response.getServer().getInstanceId());
+                        }
+                    })
+                    .doOnError(observation::error)
+                    .doFinally(signal -> observation.stop());
+        });
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        registry.retainOnly(instances.get(0).getServiceId(), instances);
+        List<ServiceInstance> healthy = instances.stream().filter(i -> !registry.isEjected(i)).toList();
+        List<ServiceInstance> candidates = healthy.isEmpty() ? instances : healthy;
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(registry.score(a) <= registry.score(b) ? a : b);
+    }
+}
@@ -0,0 +1,40 @@
+package com.bloghive.apigateway.loadbalancer;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Per-service load balancer setup, applied to every lb:// route.
+ *
+ * Deliberately not a @Configuration: Spring Cloud LoadBalancer instantiates
+ * it in a child context per service, and it must stay out of component scanning.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context) {
+        // Prefers instances in our own zone (spring.cloud.loadbalancer.zone) when there are any
+        return ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withZonePreference()
+                .withCaching()
+                .build(context);
+    }
+
+    @Bean
+    public ReactorServiceInstanceLoadBalancer latencyAwareLoadBalancer(
+            ObjectProvider<ServiceInstanceListSupplier> supplierProvider, InstanceHealthRegistry registry,
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new LatencyAwareLoadBalancer(supplierProvider, registry,
+                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    @Bean
+    public OutlierTrackingLifecycle outlierTrackingLifecycle(InstanceHealthRegistry registry) {
+        return new OutlierTrackingLifecycle(registry);
+    }
+}
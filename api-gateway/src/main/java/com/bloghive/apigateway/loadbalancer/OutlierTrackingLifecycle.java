@@ -0,0 +1,75 @@
+package com.bloghive.apigateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Feeds the outcome of every routed request into the {@link InstanceHealthRegistry}.
+ *
+ * Only failures that say something about the instance itself count against
+ * it: connection errors and timeouts, and 503 from an instance that is
+ * shutting down. A 500 caused by a bad request does not eject anyone, and
+ * neither does a 503 with Retry-After: that is a healthy instance shedding
+ * load, and ejecting it would only push its load onto the others.
+ */
+public class OutlierTrackingLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceHealthRegistry registry;
+
+    public OutlierTrackingLifecycle(InstanceHealthRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext timed && timed.getRequestStartTime() == 0) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        if (lbResponse.hasServer()) {
+            registry.onStart(lbResponse.getServer());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()
+                || completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        if (completionContext.status() == CompletionContext.Status.FAILED || isUnavailable(completionContext)) {
+            registry.onFailure(instance);
+            return;
+        }
+        long latency = 0;
+        if (completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed
+                && timed.getRequestStartTime() != 0) {
+            latency = System.nanoTime() - timed.getRequestStartTime();
+        }
+        registry.onSuccess(instance, latency);
+    }
+
+    private static boolean isUnavailable(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        return completionContext.getClientResponse() instanceof ResponseData data
+                && data.getHttpStatus() != null
+                && data.getHttpStatus().value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                && (data.getHeaders() == null || !data.getHeaders().containsKey(HttpHeaders.RETRY_AFTER));
+    }
+}
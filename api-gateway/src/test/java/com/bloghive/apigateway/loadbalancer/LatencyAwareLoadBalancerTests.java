@@ -0,0 +1,155 @@
+package com.bloghive.apigateway.loadbalancer;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.simple.reactive.SimpleReactiveDiscoveryProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes /posts/** through the gateway to several local stand-in instances of
+ * post-service, registered through the simple discovery client instead of Eureka.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.cloud.loadbalancer.cache.ttl=1s"
+})
+class LatencyAwareLoadBalancerTests {
+
+    private static final String SERVICE = "post-service";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SimpleReactiveDiscoveryProperties discovery;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<DefaultServiceInstance> instances = new CopyOnWriteArrayList<>();
+    private WebClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        client = WebClient.create("http://localhost:" + port);
+        for (int i = 0; i < 3; i++) {
+            instances.add(instance(startServer()));
+        }
+        discovery.setInstances(Map.of(SERVICE, instances));
+        awaitRoutingToCurrentInstances();
+    }
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(s -> s.stop(0));
+        discovery.setInstances(Map.of());
+    }
+
+    // Covers the gateway side only: Eureka's own registry and client refresh delays come on top
+    @Test
+    void newInstanceGetsTrafficWithinOneCacheTtlOfBeingDiscovered() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            call();
+        }
+
+        HttpServer added = startServer();
+        String addedPort = String.valueOf(added.getAddress().getPort());
+        long discovered = System.nanoTime();
+        instances.add(instance(added));
+
+        long deadline = discovered + Duration.ofSeconds(10).toNanos();
+        while (!addedPort.equals(call())) {
+            assertTrue(System.nanoTime() < deadline, "new instance got no request within 10s");
+        }
+        long millis = Duration.ofNanos(System.nanoTime() - discovered).toMillis();
+        // One cache TTL plus scheduling slack
+        assertTrue(millis < 3000, "took " + millis + " ms");
+    }
+
+    @Test
+    void deadInstanceIsEjected() {
+        HttpServer dead = servers.get(0);
+        String deadPort = String.valueOf(dead.getAddress().getPort());
+        dead.stop(0);
+
+        int failures = 0;
+        for (int i = 0; i < 30; i++) {
+            if (call() == null) {
+                failures++;
+            }
+        }
+        assertTrue(failures <= 3, failures + " requests went to the dead instance");
+
+        for (int i = 0; i < 50; i++) {
+            String served = call();
+            assertNotNull(served, "request failed after the dead instance was ejected");
+            assertNotEquals(deadPort, served);
+        }
+    }
+
+    // The load balancer cache may still list the previous test's servers for one TTL
+    private void awaitRoutingToCurrentInstances() {
+        Set<String> ports = new HashSet<>();
+        servers.forEach(s -> ports.add(String.valueOf(s.getAddress().getPort())));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            long cacheExpiry = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+            boolean stale = false;
+            while (!stale && System.nanoTime() < cacheExpiry) {
+                stale = !ports.contains(call());
+            }
+            if (!stale) {
+                return;
+            }
+        }
+        fail("gateway did not pick up the test instances");
+    }
+
+    // Returns the port of the instance that answered, or null if the request failed
+    private String call() {
+        return client.get().uri("/posts/whoami")
+                .exchangeToMono(response -> response.statusCode() == HttpStatus.OK
+                        ? response.bodyToMono(String.class)
+                        : response.releaseBody().then(Mono.<String>empty()))
+                .block(Duration.ofSeconds(10));
+    }
+
+    private HttpServer startServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        byte[] body = String.valueOf(server.getAddress().getPort()).getBytes(StandardCharsets.UTF_8);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        servers.add(server);
+        return server;
+    }
+
+    private static DefaultServiceInstance instance(HttpServer server) {
+        int serverPort = server.getAddress().getPort();
+        return new DefaultServiceInstance(SERVICE + "-" + serverPort, SERVICE, "localhost", serverPort, false);
+    }
+}
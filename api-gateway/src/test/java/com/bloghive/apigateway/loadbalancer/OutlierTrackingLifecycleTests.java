@@ -0,0 +1,77 @@
+package com.bloghive.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutlierTrackingLifecycleTests {
+
+    private final ServiceInstance instance =
+            new DefaultServiceInstance("comment-service-1", "comment-service", "localhost", 8082, false);
+
+    private InstanceHealthRegistry registry;
+    private OutlierTrackingLifecycle lifecycle;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InstanceHealthRegistry();
+        ReflectionTestUtils.setField(registry, "consecutiveFailures", 3);
+        ReflectionTestUtils.setField(registry, "ejectionMillis", 30_000L);
+        lifecycle = new OutlierTrackingLifecycle(registry);
+    }
+
+    @Test
+    void unavailableInstanceIsEjected() {
+        for (int i = 0; i < 3; i++) {
+            complete(HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders());
+        }
+        assertTrue(registry.isEjected(instance));
+    }
+
+    @Test
+    void instanceSheddingLoadIsNotEjected() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        for (int i = 0; i < 10; i++) {
+            complete(HttpStatus.SERVICE_UNAVAILABLE, headers);
+            complete(HttpStatus.TOO_MANY_REQUESTS, headers);
+        }
+        assertFalse(registry.isEjected(instance));
+    }
+
+    @Test
+    void instanceThatLeftDiscoveryIsForgotten() {
+        for (int i = 0; i < 3; i++) {
+            complete(HttpStatus.SERVICE_UNAVAILABLE, new HttpHeaders());
+        }
+        ServiceInstance replacement =
+                new DefaultServiceInstance("comment-service-2", "comment-service", "localhost", 8083, false);
+
+        registry.retainOnly("comment-service", List.of(replacement));
+
+        assertFalse(registry.isEjected(instance));
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(registry, "stats")).isEmpty());
+    }
+
+    private void complete(HttpStatus status, HttpHeaders headers) {
+        DefaultRequest<Object> request = new DefaultRequest<>();
+        DefaultResponse response = new DefaultResponse(instance);
+        lifecycle.onStartRequest(request, response);
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response,
+                new ResponseData(status, headers, new LinkedMultiValueMap<>(), null)));
+    }
+}
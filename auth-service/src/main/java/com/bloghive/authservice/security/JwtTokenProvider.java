@@ -2,7 +2,11 @@ package com.bloghive.authservice.security;
 
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -18,7 +22,19 @@ public class JwtTokenProvider {
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
-    private int jwtExpiration;
+    private volatile int jwtExpiration;
+
+    @Autowired
+    private Environment environment;
+
+    // Follows configuration refreshes; tokens already issued keep their expiry.
+    // The secret is shared with the other services, so changing it needs a restart.
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().contains("jwt.expiration")) {
+            jwtExpiration = environment.getRequiredProperty("jwt.expiration", Integer.class);
+        }
+    }
 
     public String generateToken(Authentication authentication, Long userId) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
@@ -30,8 +30,13 @@ public class UserService implements UserDetailsService {
         return userRepository.save(user);
     }
 
+    /**
+     * Two unique-index lookups instead of one query with OR, which MySQL can
+     * only answer with an index merge or a full scan. Usernames win, so the
+     * result is a single user even if the arguments match two different ones.
+     */
     public Optional<User> findByUsernameOrEmail(String username, String email) {
-        return userRepository.findByUsernameOrEmail(username, email);
+        return userRepository.findByUsername(username).or(() -> userRepository.findByEmail(email));
     }
 
     public List<User> findAll() {
@@ -52,7 +57,7 @@ public class UserService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
+        User user = findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException(
                         "User not found with username or email: " + usernameOrEmail));
 
@@ -0,0 +1,17 @@
+-- Schema as Hibernate auto-DDL created it before migrations were introduced.
+-- IF NOT EXISTS lets databases created that way adopt the migrations (they are
+-- baselined at version 0, see application.yml) while new databases are built here.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255),
+    password VARCHAR(255),
+    username VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL,
+    role VARCHAR(255),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
@@ -0,0 +1,5 @@
+-- Login looks users up by username and then by email (UserService.findByUsernameOrEmail).
+-- Unique indexes make each lookup a single-row probe and stop duplicate accounts;
+-- existing duplicates have to be resolved before this migration can run.
+CREATE UNIQUE INDEX uk_users_username ON users (username);
+CREATE UNIQUE INDEX uk_users_email ON users (email);
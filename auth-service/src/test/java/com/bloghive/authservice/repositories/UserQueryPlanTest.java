@@ -0,0 +1,79 @@
+package com.bloghive.authservice.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fails if the login lookups stop using the unique indexes. The plans come
+ * from H2, so this catches missing indexes and unindexable queries rather
+ * than MySQL-specific optimizer choices.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-plans;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bloghive.authservice.repositories.UserQueryPlanTest$Recorder"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserQueryPlanTest {
+
+    private static final int USERS = 20_000;
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[] {"user" + i, "user" + i + "@example.com", "hash"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, email, password) VALUES (?, ?, ?)", users);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void usernameLookupUsesItsUniqueIndex() {
+        assertPlan(() -> userRepository.findByUsername("user7"), "UK_USERS_USERNAME", "user7");
+    }
+
+    @Test
+    void emailLookupUsesItsUniqueIndex() {
+        assertPlan(() -> userRepository.findByEmail("user7@example.com"), "UK_USERS_EMAIL", "user7@example.com");
+    }
+
+    /**
+     * Runs the call and checks the plan of its first statement, the user
+     * lookup itself; the roles are then loaded by primary key.
+     */
+    private void assertPlan(Runnable call, String index, Object... parameters) {
+        Recorder.statements.clear();
+        call.run();
+        assertFalse(Recorder.statements.isEmpty(), "No statement was issued");
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + Recorder.statements.get(0), String.class, parameters);
+        assertFalse(plan.contains("tableScan"), () -> "Full scan: " + plan);
+        assertTrue(plan.contains(index), () -> "Expected " + index + ": " + plan);
+    }
+}
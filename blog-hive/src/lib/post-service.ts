@@ -1,3 +1,5 @@
+import { newIdempotencyKey } from "./utils";
+
 // API configuration
 const API_BASE_URL = process.env.NEXT_PUBLIC_API_URL || "http://localhost:8081";
 const POST_SERVICE_URL = `${API_BASE_URL}/posts`;
@@ -53,6 +55,8 @@ class PostService {
       headers: {
         "Content-Type": "application/json",
         Authorization: `Bearer ${token}`,
+        // Lets the gateway retry this write without creating a duplicate
+        "Idempotency-Key": newIdempotencyKey(),
       },
       body: JSON.stringify(postData),
     });
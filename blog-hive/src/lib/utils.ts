@@ -34,3 +34,17 @@ export function getHtmlPreview(html: string, length: number = 150): string {
   }
   return text.substring(0, length) + "...";
 }
+
+/**
+ * Generate a random Idempotency-Key for a write request
+ * @returns A random UUID-like string
+ */
+export function newIdempotencyKey(): string {
+  // randomUUID is only available in secure contexts (https or localhost)
+  if (typeof crypto !== "undefined" && typeof crypto.randomUUID === "function") {
+    return crypto.randomUUID();
+  }
+  const bytes = new Uint8Array(16);
+  crypto.getRandomValues(bytes);
+  return Array.from(bytes, (b) => b.toString(16).padStart(2, "0")).join("");
+}
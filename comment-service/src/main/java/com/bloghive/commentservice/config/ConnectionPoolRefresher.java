@@ -0,0 +1,54 @@
+package com.bloghive.commentservice.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Applies changed spring.datasource.hikari pool limits after a configuration refresh.
+ *
+ * Spring Cloud never rebinds the HikariDataSource, since that would mean
+ * closing it. The limits Hikari can change on a running pool are set here
+ * instead, without touching the connections that are in use.
+ */
+@Component
+public class ConnectionPoolRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolRefresher.class);
+    private static final String PREFIX = "spring.datasource.hikari.";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private Environment environment;
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) throws SQLException {
+        if (event.getKeys().stream().noneMatch(key -> key.startsWith(PREFIX))
+                || !dataSource.isWrapperFor(HikariDataSource.class)) {
+            return;
+        }
+        HikariConfigMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariConfigMXBean();
+        Binder binder = Binder.get(environment);
+        binder.bind(PREFIX + "maximum-pool-size", Integer.class).ifBound(pool::setMaximumPoolSize);
+        // Without a minimum Hikari keeps a fixed-size pool, so the minimum follows the maximum
+        pool.setMinimumIdle(binder.bind(PREFIX + "minimum-idle", Integer.class)
+                .orElse(pool.getMaximumPoolSize()));
+        binder.bind(PREFIX + "connection-timeout", Long.class).ifBound(pool::setConnectionTimeout);
+        binder.bind(PREFIX + "idle-timeout", Long.class).ifBound(pool::setIdleTimeout);
+        binder.bind(PREFIX + "max-lifetime", Long.class).ifBound(pool::setMaxLifetime);
+        log.info("Connection pool reconfigured: maximum {}, minimum idle {}, connection timeout {} ms",
+                pool.getMaximumPoolSize(), pool.getMinimumIdle(), pool.getConnectionTimeout());
+    }
+}
@@ -0,0 +1,21 @@
+package com.bloghive.commentservice.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+@Configuration
+public class PostServiceClientConfig {
+
+    // Resolves http://post-service through Eureka. Calls are observed, so they carry
+    // the trace context to post-service (in both the servlet and the reactive profile).
+    @Bean
+    @LoadBalanced
+    public RestClient.Builder loadBalancedRestClientBuilder(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return RestClient.builder()
+                .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+}
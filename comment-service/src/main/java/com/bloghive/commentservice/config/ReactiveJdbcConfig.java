@@ -0,0 +1,33 @@
+package com.bloghive.commentservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Keeps the JDBC datasource in the reactive profile. Boot skips it once an
+ * R2DBC ConnectionFactory exists, but Flyway migrates the schema over JDBC
+ * before JPA validates it, and ingestion and idempotency records are
+ * written over JDBC too.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveJdbcConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
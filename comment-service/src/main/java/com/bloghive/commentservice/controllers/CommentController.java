@@ -1,32 +1,100 @@
 package com.bloghive.commentservice.controllers;
 
 import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import com.bloghive.commentservice.security.OwnerAuthorizationManager;
+import com.bloghive.commentservice.services.CommentIngestionService;
 import com.bloghive.commentservice.services.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/comments")
 public class CommentController {
 
     @Autowired
     private CommentService commentService;
 
+    @Autowired
+    private CommentIngestionService ingestionService;
+
     @GetMapping("/post/{postId}")
-    public List<Comment> getCommentsByPostId(@PathVariable Long postId) {
-        return commentService.findByPostId(postId);
+    public ResponseEntity<List<Comment>> getCommentsByPostId(@PathVariable Long postId, WebRequest request) {
+        // Polling clients usually get a 304 from this aggregate alone
+        CommentsStamp stamp = commentService.getStampByPostId(postId);
+        if (request.checkNotModified("comments-" + postId + "-" + stamp.getCount() + "-" + stamp.getLastId())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(commentService.findByPostId(postId));
+    }
+
+    @GetMapping("/post/{postId}/thread")
+    public List<Comment> getThread(@PathVariable Long postId,
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "" + Comment.MAX_DEPTH) int maxDepth,
+            @RequestParam(defaultValue = "50") int limit) {
+        // Pass the path of the last comment received as "after" to get the next page
+        return commentService.findThreadPage(postId, after, maxDepth, clampLimit(limit));
+    }
+
+    @GetMapping("/{id}/replies")
+    public ResponseEntity<List<Comment>> getReplies(@PathVariable Long id,
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "" + Comment.MAX_DEPTH) int maxDepth,
+            @RequestParam(defaultValue = "50") int limit) {
+        return commentService.findById(id)
+                .map(root -> ResponseEntity.ok(commentService.findReplyPage(root, after, maxDepth, clampLimit(limit))))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public Comment createComment(@RequestBody Comment comment, Authentication authentication) {
-        // In a real app, you'd get the user ID from the authentication object
-        // For now, we'll just set a placeholder
-        comment.setUserId(1L); // Placeholder
-        return commentService.save(comment);
+    public ResponseEntity<Comment> createComment(@RequestBody Comment comment, Authentication authentication)
+            throws IOException, InterruptedException {
+        // The JWT filter puts the user id in the principal; it decides who may delete the comment
+        Long userId = OwnerAuthorizationManager.userId(authentication);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        comment.setUserId(userId);
+        if (!ingestionService.isAsync()) {
+            return ResponseEntity.ok(commentService.save(comment));
+        }
+        String receipt;
+        try {
+            receipt = ingestionService.submit(comment);
+        } catch (IllegalArgumentException e) {
+            // Refused before the receipt, as the writer could not store it
+            return ResponseEntity.badRequest().build();
+        }
+        if (receipt == null) {
+            // Queue full, shed load until the writer catches up. 429 rather than 503, so the
+            // gateway neither retries the request nor counts it against this instance
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        // The id is assigned when the comment is stored; poll the receipt until then
+        return ResponseEntity.accepted().location(URI.create("/comments/receipts/" + receipt)).body(comment);
+    }
+
+    @GetMapping("/receipts/{receipt}")
+    public ResponseEntity<Comment> getByReceipt(@PathVariable String receipt) {
+        if (ingestionService.isPending(receipt)) {
+            return ResponseEntity.accepted().build();
+        }
+        return commentService.findByReceipt(receipt)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
@@ -34,4 +102,8 @@ public class CommentController {
         commentService.deleteById(id);
         return ResponseEntity.ok().build();
     }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, 200));
+    }
 }
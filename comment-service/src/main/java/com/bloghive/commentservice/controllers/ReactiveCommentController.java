@@ -0,0 +1,110 @@
+package com.bloghive.commentservice.controllers;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.security.OwnerAuthorizationManager;
+import com.bloghive.commentservice.services.CommentIngestionService;
+import com.bloghive.commentservice.services.ReactiveCommentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+
+/**
+ * The CommentController API on WebFlux, for the reactive profile. Paths,
+ * status codes and headers are the same; lists are streamed as they are read.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/comments")
+public class ReactiveCommentController {
+
+    @Autowired
+    private ReactiveCommentService commentService;
+
+    @Autowired
+    private CommentIngestionService ingestionService;
+
+    @GetMapping("/post/{postId}")
+    public Mono<ResponseEntity<Flux<Comment>>> getCommentsByPostId(@PathVariable Long postId,
+            ServerWebExchange exchange) {
+        // Polling clients usually get a 304 from this aggregate alone
+        return commentService.getStampByPostId(postId).flatMap(stamp -> {
+            if (exchange.checkNotModified("comments-" + postId + "-" + stamp.getCount() + "-" + stamp.getLastId())) {
+                return Mono.empty();
+            }
+            return Mono.just(ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(commentService.findByPostId(postId)));
+        });
+    }
+
+    @GetMapping("/post/{postId}/thread")
+    public Flux<Comment> getThread(@PathVariable Long postId,
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "" + Comment.MAX_DEPTH) int maxDepth,
+            @RequestParam(defaultValue = "50") int limit) {
+        // Pass the path of the last comment received as "after" to get the next page
+        return commentService.findThreadPage(postId, after, maxDepth, clampLimit(limit));
+    }
+
+    @GetMapping("/{id}/replies")
+    public Mono<ResponseEntity<Flux<Comment>>> getReplies(@PathVariable Long id,
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "" + Comment.MAX_DEPTH) int maxDepth,
+            @RequestParam(defaultValue = "50") int limit) {
+        return commentService.findById(id)
+                .map(root -> ResponseEntity.ok(commentService.findReplyPage(root, after, maxDepth, clampLimit(limit))))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Comment>> createComment(@RequestBody Comment comment, Authentication authentication) {
+        Long userId = OwnerAuthorizationManager.userId(authentication);
+        if (userId == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        comment.setUserId(userId);
+        if (!ingestionService.isAsync()) {
+            return commentService.save(comment).map(ResponseEntity::ok);
+        }
+        // Ingestion appends to its log and may wait for an fsync, so it runs off the event loop
+        return Mono.fromCallable(() -> ingestionService.submit(comment))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(receipt -> ResponseEntity.accepted()
+                        .location(URI.create("/comments/receipts/" + receipt)).body(comment))
+                // Queue full, shed load until the writer catches up. 429 rather than 503, so the
+                // gateway neither retries the request nor counts it against this instance
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1").build())
+                // Refused before the receipt, as the writer could not store it
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @GetMapping("/receipts/{receipt}")
+    public Mono<ResponseEntity<Comment>> getByReceipt(@PathVariable String receipt) {
+        if (ingestionService.isPending(receipt)) {
+            return Mono.just(ResponseEntity.accepted().build());
+        }
+        return commentService.findByReceipt(receipt)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteComment(@PathVariable Long id) {
+        return commentService.deleteById(id).thenReturn(ResponseEntity.ok().build());
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, 200));
+    }
+}
@@ -5,22 +5,56 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_comment_post_path", columnList = "postId, path"),
+        @Index(name = "uk_comment_receipt", columnList = "receipt", unique = true)
+})
 public class Comment {
+
+    // Replies below this depth are attached to the deepest allowed ancestor
+    public static final int MAX_DEPTH = 32;
+
+    // Fixed-width id segments keep string order equal to thread order
+    public static final int PATH_SEGMENT_DIGITS = 10;
+
+    // Size of the content column
+    public static final int MAX_CONTENT_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private Long postId;
     private Long userId;
+
+    @Column(length = MAX_CONTENT_LENGTH)
     private String content;
 
+    private Long parentId;
+
+    // Ids from the root down to this comment, e.g. "0000000012/0000000045/".
+    // A whole thread or subtree is one range scan on (postId, path).
+    @Column(length = (PATH_SEGMENT_DIGITS + 1) * MAX_DEPTH + 16)
+    private String path;
+
+    private int depth;
+
+    // Direct replies only, maintained on insert and delete
+    private int replyCount;
+
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    // Handed out when a comment is accepted for asynchronous ingestion, before it has an id
+    @Column(length = 36, updatable = false)
+    private String receipt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -65,4 +99,44 @@ public class Comment {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getReplyCount() {
+        return replyCount;
+    }
+
+    public void setReplyCount(int replyCount) {
+        this.replyCount = replyCount;
+    }
+
+    public String getReceipt() {
+        return receipt;
+    }
+
+    public void setReceipt(String receipt) {
+        this.receipt = receipt;
+    }
 }
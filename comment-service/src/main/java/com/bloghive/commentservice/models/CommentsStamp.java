@@ -0,0 +1,11 @@
+package com.bloghive.commentservice.models;
+
+/**
+ * Summary of the comments on one post used as the validator for conditional GETs.
+ * A new comment raises lastId and a deletion lowers count.
+ */
+public interface CommentsStamp {
+    Long getCount();
+
+    Long getLastId();
+}
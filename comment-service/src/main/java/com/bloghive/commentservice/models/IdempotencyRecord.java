@@ -0,0 +1,116 @@
+package com.bloghive.commentservice.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The stored outcome of a write sent with an Idempotency-Key, so a retry gets the same answer.
+ *
+ * Rows are written and read by IdempotencyService with plain SQL; the
+ * entity is here to describe the table.
+ */
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_expires", columnList = "expiresAt"))
+public class IdempotencyRecord {
+
+    // SHA-256 of caller, method, path and key, hex encoded
+    @Id
+    @Column(length = 64)
+    private String keyHash;
+
+    // SHA-256 of the request body, to reject a key reused for a different request
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+
+    // False while the first request is still being processed
+    private boolean completed;
+
+    private int status;
+
+    private String contentType;
+
+    // Headers a retry needs to see, such as Location and ETag, one "Name: value" per line
+    @Column(length = 2048)
+    private String headers;
+
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] body;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    public String getKeyHash() {
+        return keyHash;
+    }
+
+    public void setKeyHash(String keyHash) {
+        this.keyHash = keyHash;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(String headers) {
+        this.headers = headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
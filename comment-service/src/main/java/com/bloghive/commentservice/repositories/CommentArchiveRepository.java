@@ -0,0 +1,163 @@
+package com.bloghive.commentservice.repositories;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads of the comment_archive table, and the moves of whole threads between
+ * it and comment.
+ *
+ * Plain SQL rather than a second entity, so archived comments are never
+ * managed by JPA. Each move is one short transaction that locks only the
+ * rows it moves, and only rows it has locked are copied and deleted, so a
+ * comment added meanwhile simply stays in the hot table.
+ */
+@Repository
+public class CommentArchiveRepository {
+
+    private static final String COLUMNS =
+            "id, post_id, user_id, content, parent_id, path, depth, reply_count, created_at, receipt";
+
+    /**
+     * Newest comment of a post's thread, for picking threads to archive.
+     */
+    public record ThreadActivity(Long postId, LocalDateTime lastCommentAt) {
+    }
+
+    private record Stamp(Long getCount, Long getLastId) implements CommentsStamp {
+    }
+
+    private static final RowMapper<Comment> COMMENT = (rs, rowNum) -> {
+        Comment comment = new Comment();
+        comment.setId(rs.getLong("id"));
+        comment.setPostId(rs.getObject("post_id", Long.class));
+        comment.setUserId(rs.getObject("user_id", Long.class));
+        comment.setContent(rs.getString("content"));
+        comment.setParentId(rs.getObject("parent_id", Long.class));
+        comment.setPath(rs.getString("path"));
+        comment.setDepth(rs.getInt("depth"));
+        comment.setReplyCount(rs.getInt("reply_count"));
+        comment.setCreatedAt(toLocal(rs.getTimestamp("created_at")));
+        comment.setReceipt(rs.getString("receipt"));
+        return comment;
+    };
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<Comment> findById(Long id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM comment_archive WHERE id = :id", Map.of("id", id),
+                COMMENT).stream().findFirst();
+    }
+
+    public Optional<Long> findUserIdById(Long id) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM comment_archive WHERE id = :id", Map.of("id", id),
+                Long.class).stream().findFirst();
+    }
+
+    public List<Comment> findByPostId(Long postId) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM comment_archive WHERE post_id = :postId "
+                + "ORDER BY path, id", Map.of("postId", postId), COMMENT);
+    }
+
+    public CommentsStamp findStampByPostId(Long postId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) AS cnt, MAX(id) AS last_id FROM comment_archive "
+                        + "WHERE post_id = :postId", Map.of("postId", postId),
+                (rs, rowNum) -> new Stamp(rs.getLong("cnt"), rs.getObject("last_id", Long.class)));
+    }
+
+    // Served by idx_comment_archive_post_path as a single range scan
+    public List<Comment> findThreadPage(Long postId, String prefix, String after, int maxDepth, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM comment_archive WHERE post_id = :postId "
+                        + "AND path LIKE :prefix AND path > :after AND depth <= :maxDepth ORDER BY path LIMIT :limit",
+                new MapSqlParameterSource("postId", postId)
+                        .addValue("prefix", prefix)
+                        .addValue("after", after)
+                        .addValue("maxDepth", maxDepth)
+                        .addValue("limit", limit), COMMENT);
+    }
+
+    /**
+     * The next threads in the hot table after the given post id, walked along
+     * idx_comment_post_path, so each call reads only the comments of limit posts.
+     */
+    public List<ThreadActivity> findThreadActivity(Long afterPostId, int limit) {
+        return jdbcTemplate.query("SELECT post_id, MAX(created_at) AS last_comment_at FROM comment "
+                        + "WHERE post_id > :after GROUP BY post_id ORDER BY post_id LIMIT :limit",
+                new MapSqlParameterSource("after", afterPostId).addValue("limit", limit),
+                (rs, rowNum) -> new ThreadActivity(rs.getLong("post_id"),
+                        toLocal(rs.getTimestamp("last_comment_at"))));
+    }
+
+    /**
+     * Moves the threads of the given posts to the archive, skipping any that
+     * had a comment since the cutoff.
+     *
+     * @return the number of comments moved
+     */
+    @Transactional
+    public int archiveThreads(List<Long> postIds, LocalDateTime cutoff) {
+        // Locks the threads and re-checks them, so a concurrent reply or delete either waits or wins
+        Map<Long, LocalDateTime> lastCommentAt = new HashMap<>();
+        Map<Long, List<Long>> idsByPost = new HashMap<>();
+        jdbcTemplate.query("SELECT id, post_id, created_at FROM comment WHERE post_id IN (:postIds) FOR UPDATE",
+                Map.of("postIds", postIds), rs -> {
+                    Long postId = rs.getLong("post_id");
+                    LocalDateTime createdAt = toLocal(rs.getTimestamp("created_at"));
+                    idsByPost.computeIfAbsent(postId, key -> new ArrayList<>()).add(rs.getLong("id"));
+                    if (createdAt != null) {
+                        lastCommentAt.merge(postId, createdAt, (a, b) -> a.isAfter(b) ? a : b);
+                    }
+                });
+        List<Long> ids = new ArrayList<>();
+        idsByPost.forEach((postId, threadIds) -> {
+            LocalDateTime last = lastCommentAt.get(postId);
+            if (last != null && last.isBefore(cutoff)) {
+                ids.addAll(threadIds);
+            }
+        });
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids).addValue("now", LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO comment_archive (" + COLUMNS + ", archived_at) SELECT " + COLUMNS
+                + ", :now FROM comment WHERE id IN (:ids)", params);
+        return jdbcTemplate.update("DELETE FROM comment WHERE id IN (:ids)", params);
+    }
+
+    /**
+     * Moves the archived part of a post's thread back to the hot table.
+     *
+     * @return the number of comments moved
+     */
+    @Transactional
+    public int restoreThread(Long postId) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM comment_archive WHERE post_id = :postId "
+                + "FOR UPDATE", Map.of("postId", postId), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<Long>> params = Map.of("ids", ids);
+        jdbcTemplate.update("INSERT INTO comment (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM comment_archive WHERE id IN (:ids)", params);
+        return jdbcTemplate.update("DELETE FROM comment_archive WHERE id IN (:ids)", params);
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -1,9 +1,46 @@
 package com.bloghive.commentservice.repositories;
 
 import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+public interface CommentRepository extends JpaRepository<Comment, Long>, CommentRepositoryCustom {
+    List<Comment> findByPostIdOrderByPathAscIdAsc(Long postId);
+
+    Optional<Comment> findByReceipt(String receipt);
+
+    // Primary key lookup of one column, for ownership checks
+    @Query("SELECT c.userId FROM Comment c WHERE c.id = :id")
+    Optional<Long> findUserIdById(Long id);
+
+    @Query("SELECT c.receipt FROM Comment c WHERE c.receipt IN :receipts")
+    List<String> findExistingReceipts(Collection<String> receipts);
+
+    @Query("SELECT COUNT(c) AS count, MAX(c.id) AS lastId FROM Comment c WHERE c.postId = :postId")
+    CommentsStamp findStampByPostId(Long postId);
+
+    // Served by idx_comment_post_path as a single range scan
+    @Query("SELECT c FROM Comment c WHERE c.postId = :postId AND c.path LIKE :prefix AND c.path > :after "
+            + "AND c.depth <= :maxDepth ORDER BY c.path")
+    List<Comment> findThreadPage(Long postId, String prefix, String after, int maxDepth, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Comment c SET c.replyCount = c.replyCount + :delta WHERE c.id = :id")
+    int adjustReplyCount(Long id, int delta);
+
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.postId = :postId AND c.path LIKE :prefix")
+    int deleteSubtree(Long postId, String prefix);
 
-public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByPostId(Long postId);
+    // Comments created before threading have no path; they are all top level
+    @Modifying
+    @Query(value = "UPDATE comment SET path = CONCAT(LPAD(id, 10, '0'), '/') WHERE path IS NULL", nativeQuery = true)
+    int backfillRootPaths();
 }
@@ -0,0 +1,18 @@
+package com.bloghive.commentservice.repositories;
+
+import com.bloghive.commentservice.models.Comment;
+
+import java.util.List;
+import java.util.Map;
+
+public interface CommentRepositoryCustom {
+
+    /**
+     * Inserts all comments with one multi-row INSERT and sets their generated ids.
+     */
+    void insertAll(List<Comment> comments);
+
+    void updatePaths(List<Comment> comments);
+
+    void adjustReplyCounts(Map<Long, Integer> deltas);
+}
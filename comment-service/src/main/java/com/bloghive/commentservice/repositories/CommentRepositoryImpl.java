@@ -0,0 +1,75 @@
+package com.bloghive.commentservice.repositories;
+
+import com.bloghive.commentservice.models.Comment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class CommentRepositoryImpl implements CommentRepositoryCustom {
+
+    private static final String INSERT_COLUMNS = "INSERT INTO comment "
+            + "(post_id, user_id, content, parent_id, depth, reply_count, created_at, receipt) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, 0, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<Comment> comments) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        String sql = INSERT_COLUMNS + String.join(", ", Collections.nCopies(comments.size(), ROW));
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                int i = 1;
+                for (Comment c : comments) {
+                    ps.setLong(i++, c.getPostId());
+                    ps.setObject(i++, c.getUserId(), Types.BIGINT);
+                    ps.setString(i++, c.getContent());
+                    ps.setObject(i++, c.getParentId(), Types.BIGINT);
+                    ps.setInt(i++, c.getDepth());
+                    ps.setTimestamp(i++, Timestamp.valueOf(c.getCreatedAt()));
+                    ps.setString(i++, c.getReceipt());
+                }
+                ps.executeUpdate();
+                // Keys come back in row order
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Comment c : comments) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Fewer generated keys than inserted comments");
+                        }
+                        c.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void updatePaths(List<Comment> comments) {
+        List<Object[]> args = new ArrayList<>();
+        for (Comment c : comments) {
+            args.add(new Object[] {c.getPath(), c.getId()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE comment SET path = ? WHERE id = ?", args);
+    }
+
+    @Override
+    public void adjustReplyCounts(Map<Long, Integer> deltas) {
+        List<Object[]> args = new ArrayList<>();
+        deltas.forEach((id, delta) -> args.add(new Object[] {delta, id}));
+        jdbcTemplate.batchUpdate("UPDATE comment SET reply_count = reply_count + ? WHERE id = ?", args);
+    }
+}
@@ -0,0 +1,240 @@
+package com.bloghive.commentservice.repositories;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * R2DBC counterpart of CommentRepository for the reactive profile, with the
+ * same queries written as SQL against the table JPA maps Comment to. Reads
+ * of archived threads go through here too, and so do the restores a write
+ * needs, so that they run in the write's transaction. Archiving is left to
+ * CommentArchiver and the blocking CommentArchiveRepository.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveCommentRepository {
+
+    private static final String COLUMNS =
+            "id, post_id, user_id, content, parent_id, path, depth, reply_count, created_at, receipt";
+
+    // Threads moved by CommentArchiver are read from the archive with the same queries
+    private static final String HOT = "comment";
+    private static final String ARCHIVE = "comment_archive";
+
+    private record Stamp(Long getCount, Long getLastId) implements CommentsStamp {
+    }
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<Comment> findById(Long id) {
+        return findById(HOT, id);
+    }
+
+    public Mono<Comment> findArchivedById(Long id) {
+        return findById(ARCHIVE, id);
+    }
+
+    public Mono<Long> findUserIdById(Long id) {
+        return findUserIdById(HOT, id);
+    }
+
+    public Mono<Long> findArchivedUserIdById(Long id) {
+        return findUserIdById(ARCHIVE, id);
+    }
+
+    public Mono<Comment> findByReceipt(String receipt) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM comment WHERE receipt = :receipt")
+                .bind("receipt", receipt)
+                .map(ReactiveCommentRepository::toComment)
+                .one();
+    }
+
+    public Flux<Comment> findByPostIdOrderByPathAscIdAsc(Long postId) {
+        return findByPostId(HOT, postId);
+    }
+
+    public Flux<Comment> findArchivedByPostId(Long postId) {
+        return findByPostId(ARCHIVE, postId);
+    }
+
+    public Mono<CommentsStamp> findStampByPostId(Long postId) {
+        return findStampByPostId(HOT, postId);
+    }
+
+    public Mono<CommentsStamp> findArchivedStampByPostId(Long postId) {
+        return findStampByPostId(ARCHIVE, postId);
+    }
+
+    public Flux<Comment> findThreadPage(Long postId, String prefix, String after, int maxDepth, int limit) {
+        return findThreadPage(HOT, postId, prefix, after, maxDepth, limit);
+    }
+
+    public Flux<Comment> findArchivedThreadPage(Long postId, String prefix, String after, int maxDepth, int limit) {
+        return findThreadPage(ARCHIVE, postId, prefix, after, maxDepth, limit);
+    }
+
+    /**
+     * Inserts a new comment and sets its generated id.
+     */
+    public Mono<Comment> insert(Comment comment) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO comment "
+                        + "(post_id, user_id, content, parent_id, depth, reply_count, created_at, receipt) "
+                        + "VALUES (:postId, :userId, :content, :parentId, :depth, 0, :createdAt, :receipt)")
+                .bind("depth", comment.getDepth())
+                .bind("createdAt", comment.getCreatedAt());
+        spec = bind(spec, "postId", comment.getPostId(), Long.class);
+        spec = bind(spec, "userId", comment.getUserId(), Long.class);
+        spec = bind(spec, "content", comment.getContent(), String.class);
+        spec = bind(spec, "parentId", comment.getParentId(), Long.class);
+        spec = bind(spec, "receipt", comment.getReceipt(), String.class);
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    comment.setId(id);
+                    return comment;
+                });
+    }
+
+    public Mono<Long> updatePath(Long id, String path) {
+        return databaseClient.sql("UPDATE comment SET path = :path WHERE id = :id")
+                .bind("path", path)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> adjustReplyCount(Long id, int delta) {
+        return databaseClient.sql("UPDATE comment SET reply_count = reply_count + :delta WHERE id = :id")
+                .bind("delta", delta)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM comment WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteSubtree(Long postId, String prefix) {
+        return databaseClient.sql("DELETE FROM comment WHERE post_id = :postId AND path LIKE :prefix")
+                .bind("postId", postId)
+                .bind("prefix", prefix)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Moves the archived part of a post's thread back to the hot table, like
+     * CommentArchiveRepository.restoreThread, within the caller's transaction.
+     *
+     * @return the number of comments moved
+     */
+    public Mono<Long> restoreThread(Long postId) {
+        return databaseClient.sql("SELECT id FROM comment_archive WHERE post_id = :postId FOR UPDATE")
+                .bind("postId", postId)
+                .map(row -> row.get("id", Long.class))
+                .all()
+                .collectList()
+                .flatMap(ids -> ids.isEmpty()
+                        ? Mono.just(0L)
+                        : databaseClient.sql("INSERT INTO comment (" + COLUMNS + ") SELECT " + COLUMNS
+                                        + " FROM comment_archive WHERE id IN (:ids)")
+                                .bind("ids", ids)
+                                .fetch()
+                                .rowsUpdated()
+                                .then(databaseClient.sql("DELETE FROM comment_archive WHERE id IN (:ids)")
+                                        .bind("ids", ids)
+                                        .fetch()
+                                        .rowsUpdated()));
+    }
+
+    /**
+     * Moves back the thread of an archived comment, if it is archived.
+     *
+     * @return the number of comments moved
+     */
+    public Mono<Long> restoreThreadOf(Long commentId) {
+        return findArchivedById(commentId)
+                .flatMap(comment -> restoreThread(comment.getPostId()))
+                .defaultIfEmpty(0L);
+    }
+
+    private Mono<Comment> findById(String table, Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM " + table + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveCommentRepository::toComment)
+                .one();
+    }
+
+    private Mono<Long> findUserIdById(String table, Long id) {
+        return databaseClient.sql("SELECT user_id FROM " + table + " WHERE id = :id")
+                .bind("id", id)
+                .map(row -> Optional.ofNullable(row.get("user_id", Long.class)))
+                .one()
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private Flux<Comment> findByPostId(String table, Long postId) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM " + table + " WHERE post_id = :postId ORDER BY path, id")
+                .bind("postId", postId)
+                .map(ReactiveCommentRepository::toComment)
+                .all();
+    }
+
+    private Mono<CommentsStamp> findStampByPostId(String table, Long postId) {
+        return databaseClient.sql("SELECT COUNT(*) AS cnt, MAX(id) AS last_id FROM " + table
+                        + " WHERE post_id = :postId")
+                .bind("postId", postId)
+                .map(row -> (CommentsStamp) new Stamp(row.get("cnt", Long.class), row.get("last_id", Long.class)))
+                .one();
+    }
+
+    // Served by idx_comment_post_path (idx_comment_archive_post_path) as a single range scan
+    private Flux<Comment> findThreadPage(String table, Long postId, String prefix, String after, int maxDepth,
+            int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM " + table + " WHERE post_id = :postId "
+                        + "AND path LIKE :prefix AND path > :after AND depth <= :maxDepth ORDER BY path LIMIT :limit")
+                .bind("postId", postId)
+                .bind("prefix", prefix)
+                .bind("after", after)
+                .bind("maxDepth", maxDepth)
+                .bind("limit", limit)
+                .map(ReactiveCommentRepository::toComment)
+                .all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name,
+            Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private static Comment toComment(Readable row) {
+        Comment comment = new Comment();
+        comment.setId(row.get("id", Long.class));
+        comment.setPostId(row.get("post_id", Long.class));
+        comment.setUserId(row.get("user_id", Long.class));
+        comment.setContent(row.get("content", String.class));
+        comment.setParentId(row.get("parent_id", Long.class));
+        comment.setPath(row.get("path", String.class));
+        comment.setDepth(row.get("depth", Integer.class));
+        comment.setReplyCount(row.get("reply_count", Integer.class));
+        comment.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        comment.setReceipt(row.get("receipt", String.class));
+        return comment;
+    }
+}
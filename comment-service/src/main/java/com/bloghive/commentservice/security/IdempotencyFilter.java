@@ -0,0 +1,211 @@
+package com.bloghive.commentservice.security;
+
+import com.bloghive.commentservice.models.IdempotencyRecord;
+import com.bloghive.commentservice.services.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Makes POST requests carrying an Idempotency-Key safe to retry.
+ *
+ * Runs after authorization, so keys are scoped to the caller and only
+ * accepted requests claim one. Not a @Component: Boot would also register
+ * it as a plain servlet filter, ahead of the security chain.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // Response headers stored with the body, so a replay points at the same resource and version
+    public static final List<String> STORED_HEADERS = List.of(HttpHeaders.LOCATION, HttpHeaders.CONTENT_LOCATION,
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyService idempotencyService;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "Invalid " + HEADER);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String caller = authentication != null ? authentication.getName() : "anonymous";
+        String keyHash = sha256((caller + "\n" + request.getMethod() + "\n" + request.getRequestURI() + "\n" + key)
+                .getBytes(StandardCharsets.UTF_8));
+        String requestHash = sha256(body);
+
+        IdempotencyService.Decision decision;
+        try {
+            decision = idempotencyService.begin(keyHash, requestHash);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+            return;
+        }
+
+        switch (decision.getOutcome()) {
+            case REPLAY -> replay(decision.getResponse(), response);
+            case IN_PROGRESS -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                reject(response, HttpStatus.CONFLICT, "A request with this " + HEADER + " is in progress");
+            }
+            case MISMATCH -> reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request");
+            case PROCEED -> {
+                ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+                try {
+                    filterChain.doFilter(new CachedBodyRequest(request, body), captured);
+                    idempotencyService.complete(keyHash, requestHash, captured.getStatus(),
+                            captured.getContentType(), storedHeaders(captured::getHeader),
+                            captured.getContentAsByteArray());
+                } catch (IOException | ServletException | RuntimeException e) {
+                    idempotencyService.abandon(keyHash);
+                    throw e;
+                } finally {
+                    captured.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private static void replay(IdempotencyRecord stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        replayedHeaders(stored).forEach(response::setHeader);
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        if (stored.getBody() != null) {
+            response.setContentLength(stored.getBody().length);
+            response.getOutputStream().write(stored.getBody());
+        }
+    }
+
+    /**
+     * Encodes the STORED_HEADERS present on a response, or null if there are none.
+     */
+    public static String storedHeaders(Function<String, String> header) {
+        StringBuilder headers = new StringBuilder();
+        for (String name : STORED_HEADERS) {
+            String value = header.apply(name);
+            if (value != null) {
+                headers.append(name).append(": ").append(value).append('\n');
+            }
+        }
+        return headers.isEmpty() ? null : headers.toString();
+    }
+
+    public static Map<String, String> replayedHeaders(IdempotencyRecord stored) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (stored.getHeaders() != null) {
+            for (String line : stored.getHeaders().split("\n")) {
+                int colon = line.indexOf(": ");
+                if (colon > 0) {
+                    headers.put(line.substring(0, colon), line.substring(colon + 2));
+                }
+            }
+        }
+        return headers;
+    }
+
+    // Written directly rather than with sendError, whose error dispatch would not be authenticated
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    private static String sha256(byte[] input) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(input));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The body has already been read for hashing, so the controller reads it from here
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.bloghive.commentservice.security;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,11 +25,15 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
+@Profile("!reactive")
 public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
 
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -38,6 +46,13 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
 
         String token = header.replace("Bearer ", "");
 
+        // Only the verification is observed; the rest of the chain has its own spans
+        Observation.createNotStarted("jwt.verify", observationRegistry).observe(() -> authenticate(token));
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(String token) {
         try {
             SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
 
@@ -51,8 +66,10 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
             if (username != null) {
                 @SuppressWarnings("unchecked")
                 List<String> authorities = (List<String>) claims.get("authorities");
+                // The user id is the principal, as in post-service; service tokens have none
+                Object userId = claims.get("userId");
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                        username, null,
+                        userId != null ? userId.toString() : username, null,
                         authorities != null
                                 ? authorities.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList())
                                 : List.of());
@@ -61,7 +78,5 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
         } catch (Exception e) {
             SecurityContextHolder.clearContext();
         }
-
-        filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package com.bloghive.commentservice.security;
+
+import com.bloghive.commentservice.models.IdempotencyRecord;
+import com.bloghive.commentservice.services.IdempotencyService;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * WebFlux version of IdempotencyFilter, with the same keys, outcomes and
+ * status codes. IdempotencyService blocks on JDBC and on duplicates still
+ * in flight, so its calls run on the bounded elastic scheduler.
+ *
+ * Not a @Component, for the same reason as ReactiveJwtAuthenticationFilter.
+ */
+public class ReactiveIdempotencyFilter implements WebFilter {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyService idempotencyService;
+
+    public ReactiveIdempotencyFilter(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String header = request.getHeaders().getFirst(IdempotencyFilter.HEADER);
+        if (request.getMethod() != HttpMethod.POST || header == null) {
+            return chain.filter(exchange);
+        }
+        String key = header.trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return reject(exchange.getResponse(), HttpStatus.BAD_REQUEST, "Invalid " + IdempotencyFilter.HEADER);
+        }
+
+        Mono<String> caller = ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .defaultIfEmpty("anonymous");
+        return DataBufferUtils.join(request.getBody())
+                .map(ReactiveIdempotencyFilter::toBytes)
+                .defaultIfEmpty(new byte[0])
+                .zipWith(caller)
+                .flatMap(bodyAndCaller -> {
+                    byte[] body = bodyAndCaller.getT1();
+                    String keyHash = sha256((bodyAndCaller.getT2() + "\n" + request.getMethod() + "\n"
+                            + request.getPath().value() + "\n" + key).getBytes(StandardCharsets.UTF_8));
+                    return handle(exchange, chain, keyHash, sha256(body), body);
+                });
+    }
+
+    private Mono<Void> handle(ServerWebExchange exchange, WebFilterChain chain, String keyHash, String requestHash,
+            byte[] body) {
+        return Mono.fromCallable(() -> idempotencyService.begin(keyHash, requestHash))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(decision -> switch (decision.getOutcome()) {
+                    case REPLAY -> replay(decision.getResponse(), exchange.getResponse());
+                    case IN_PROGRESS -> {
+                        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                        yield reject(exchange.getResponse(), HttpStatus.CONFLICT,
+                                "A request with this " + IdempotencyFilter.HEADER + " is in progress");
+                    }
+                    case MISMATCH -> reject(exchange.getResponse(), HttpStatus.UNPROCESSABLE_ENTITY,
+                            IdempotencyFilter.HEADER + " was already used for a different request");
+                    case PROCEED -> proceed(exchange, chain, keyHash, requestHash, body);
+                })
+                .onErrorResume(InterruptedException.class,
+                        e -> reject(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, "Interrupted"));
+    }
+
+    private Mono<Void> proceed(ServerWebExchange exchange, WebFilterChain chain, String keyHash, String requestHash,
+            byte[] body) {
+        // The body has already been read for hashing, so the controller reads it from here
+        ServerHttpRequest cachedBody = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+        ServerHttpResponse captured = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            private final AtomicBoolean stored = new AtomicBoolean();
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> content) {
+                return DataBufferUtils.join(content)
+                        .map(ReactiveIdempotencyFilter::toBytes)
+                        .defaultIfEmpty(new byte[0])
+                        .flatMap(bytes -> store(bytes)
+                                .then(super.writeWith(Mono.just(bufferFactory().wrap(bytes)))));
+            }
+
+            @Override
+            public Mono<Void> setComplete() {
+                return store(new byte[0]).then(super.setComplete());
+            }
+
+            private Mono<Void> store(byte[] bytes) {
+                if (!stored.compareAndSet(false, true)) {
+                    return Mono.empty();
+                }
+                HttpStatusCode status = getStatusCode() != null ? getStatusCode() : HttpStatus.OK;
+                MediaType contentType = getHeaders().getContentType();
+                String headers = IdempotencyFilter.storedHeaders(getHeaders()::getFirst);
+                return Mono.<Void>fromRunnable(() -> idempotencyService.complete(keyHash, requestHash,
+                                status.value(), contentType != null ? contentType.toString() : null, headers, bytes))
+                        .subscribeOn(Schedulers.boundedElastic());
+            }
+        };
+        return chain.filter(exchange.mutate().request(cachedBody).response(captured).build())
+                .onErrorResume(e -> Mono.<Void>fromRunnable(() -> idempotencyService.abandon(keyHash))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(Mono.error(e)));
+    }
+
+    private static Mono<Void> replay(IdempotencyRecord stored, ServerHttpResponse response) {
+        response.setStatusCode(HttpStatusCode.valueOf(stored.getStatus()));
+        response.getHeaders().set(IdempotencyFilter.REPLAYED_HEADER, "true");
+        IdempotencyFilter.replayedHeaders(stored).forEach(response.getHeaders()::set);
+        if (stored.getContentType() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, stored.getContentType());
+        }
+        if (stored.getBody() == null) {
+            return response.setComplete();
+        }
+        response.getHeaders().setContentLength(stored.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(stored.getBody())));
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, HttpStatus status, String message) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] json = ("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(json)));
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+
+    private static String sha256(byte[] input) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(input));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
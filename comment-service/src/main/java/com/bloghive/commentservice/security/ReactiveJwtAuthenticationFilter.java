@@ -0,0 +1,88 @@
+package com.bloghive.commentservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * WebFlux version of JwtTokenAuthenticationFilter: a valid bearer token
+ * authenticates the request as its subject with the token's authorities,
+ * and a missing or invalid one leaves the request anonymous.
+ *
+ * Not a @Component: WebFlux would also apply every WebFilter bean to all
+ * requests, outside the security chain.
+ */
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private final String jwtSecret;
+    private final ObservationRegistry observationRegistry;
+
+    public ReactiveJwtAuthenticationFilter(String jwtSecret, ObservationRegistry observationRegistry) {
+        this.jwtSecret = jwtSecret;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (header == null || !header.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        String token = header.replace("Bearer ", "");
+
+        // Only the verification is observed, under the request's observation from the Reactor context
+        return Mono.deferContextual(context -> {
+            UsernamePasswordAuthenticationToken auth = Observation.createNotStarted("jwt.verify", observationRegistry)
+                    .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                    .observe(() -> authenticate(token));
+            return auth != null
+                    ? chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth))
+                    : chain.filter(exchange);
+        });
+    }
+
+    private UsernamePasswordAuthenticationToken authenticate(String token) {
+        try {
+            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+
+            String username = claims.getSubject();
+            if (username == null) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            List<String> authorities = (List<String>) claims.get("authorities");
+            Object userId = claims.get("userId");
+            return new UsernamePasswordAuthenticationToken(
+                    userId != null ? userId.toString() : username, null,
+                    authorities != null
+                            ? authorities.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList())
+                            : List.of());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bloghive.commentservice.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * WebFlux version of OwnerAuthorizationManager. Owners that are not cached
+ * yet are loaded without blocking (see ReactiveCommentService#findOwnerById).
+ */
+public class ReactiveOwnerAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+
+    private final String variable;
+    private final Function<Long, Mono<Long>> ownerOf;
+
+    public ReactiveOwnerAuthorizationManager(String variable, Function<Long, Mono<Long>> ownerOf) {
+        this.variable = variable;
+        this.ownerOf = ownerOf;
+    }
+
+    @Override
+    public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+        Object value = context.getVariables().get(variable);
+        Long id = OwnerAuthorizationManager.parse(value != null ? value.toString() : null);
+        if (id == null) {
+            return Mono.just(new AuthorizationDecision(false));
+        }
+        return authentication
+                .mapNotNull(OwnerAuthorizationManager::userId)
+                .flatMap(caller -> ownerOf.apply(id).map(caller::equals))
+                .defaultIfEmpty(false)
+                .map(AuthorizationDecision::new);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bloghive.commentservice.security;
+
+import com.bloghive.commentservice.services.IdempotencyService;
+import com.bloghive.commentservice.services.ReactiveCommentService;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * Security for the reactive profile, matching SecurityConfig: stateless JWT
+ * authentication, the same access rules, and 403 for unauthenticated
+ * requests to protected endpoints as the servlet chain answers.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private ReactiveCommentService commentService;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http
+                .csrf(csrf -> csrf.disable())
+                .httpBasic(basic -> basic.disable())
+                .formLogin(form -> form.disable())
+                .logout(logout -> logout.disable())
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .addFilterAt(new ReactiveJwtAuthenticationFilter(jwtSecret, observationRegistry), SecurityWebFiltersOrder.AUTHENTICATION)
+                .addFilterAfter(new ReactiveIdempotencyFilter(idempotencyService), SecurityWebFiltersOrder.AUTHORIZATION)
+                .authorizeExchange(auth -> auth
+                        .pathMatchers(HttpMethod.GET, "/comments/post/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/comments/{id}/replies").permitAll()
+                        .pathMatchers(HttpMethod.POST, "/comments/**").authenticated()
+                        .pathMatchers(HttpMethod.DELETE, "/comments/{id}")
+                                .access(new ReactiveOwnerAuthorizationManager("id", commentService::findOwnerById))
+                        .anyExchange().authenticated());
+        return http.build();
+    }
+}
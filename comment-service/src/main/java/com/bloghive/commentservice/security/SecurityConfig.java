@@ -1,31 +1,47 @@
 package com.bloghive.commentservice.security;
 
+import com.bloghive.commentservice.services.CommentOwners;
+import com.bloghive.commentservice.services.IdempotencyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Autowired
     private JwtTokenAuthenticationFilter jwtTokenAuthenticationFilter;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CommentOwners commentOwners;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(jwtTokenAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new IdempotencyFilter(idempotencyService), AuthorizationFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.GET, "/comments/post/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/comments/{id}/replies").permitAll()
                         .requestMatchers(HttpMethod.POST, "/comments/**").authenticated()
+                        // Only the comment's author may delete it; the owner comes from CommentOwners
+                        .requestMatchers(HttpMethod.DELETE, "/comments/{id}")
+                                .access(new OwnerAuthorizationManager("id", commentOwners::ownerOf))
                         .anyRequest().authenticated());
         return http.build();
     }
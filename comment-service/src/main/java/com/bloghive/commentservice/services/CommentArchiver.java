@@ -0,0 +1,158 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import com.bloghive.commentservice.repositories.CommentArchiveRepository;
+import com.bloghive.commentservice.repositories.CommentArchiveRepository.ThreadActivity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves comment threads that have been quiet for comments.archive.max-age
+ * from comment to comment_archive, so the hot table and its index stay small
+ * enough to be cached by MySQL.
+ *
+ * Threads move whole, keyed by post: paths, reply counts and subtree deletes
+ * all work within one post, and the post's own age lives in post-service.
+ * Each run walks the posts in id order, batch-size threads at a time, each
+ * batch its own short transaction that locks only the rows being moved, with
+ * a pause in between; a run stops after max-batches and the next one carries
+ * on where it left off.
+ *
+ * Reads look at both tables (see CommentService). Replying to or deleting an
+ * archived comment moves its thread back first; a new top-level comment on an
+ * archived post just goes to the hot table and the reads merge the two.
+ */
+@Service
+public class CommentArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentArchiver.class);
+
+    // Same order as ORDER BY path, id in MySQL, which puts NULL first
+    static final Comparator<Comment> THREAD_ORDER = Comparator
+            .comparing(Comment::getPath, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Comment::getId);
+
+    private record CombinedStamp(Long getCount, Long getLastId) implements CommentsStamp {
+    }
+
+    @Autowired
+    private CommentArchiveRepository commentArchiveRepository;
+
+    @Value("${comments.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${comments.archive.max-age:365d}")
+    private Duration maxAge;
+
+    @Value("${comments.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${comments.archive.batch-pause:200ms}")
+    private Duration batchPause;
+
+    @Value("${comments.archive.max-batches:100}")
+    private int maxBatches;
+
+    // Last post id looked at; only the scheduler thread touches it
+    private long cursor;
+
+    @Scheduled(fixedDelayString = "${comments.archive.interval:10m}",
+            initialDelayString = "${comments.archive.interval:10m}")
+    public void archiveQuietThreads() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        int moved = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<ThreadActivity> threads = commentArchiveRepository.findThreadActivity(cursor, batchSize);
+            if (threads.isEmpty()) {
+                cursor = 0;
+                break;
+            }
+            cursor = threads.get(threads.size() - 1).postId();
+            List<Long> quiet = threads.stream()
+                    .filter(thread -> thread.lastCommentAt() != null && thread.lastCommentAt().isBefore(cutoff))
+                    .map(ThreadActivity::postId)
+                    .toList();
+            if (!quiet.isEmpty()) {
+                moved += commentArchiveRepository.archiveThreads(quiet, cutoff);
+            }
+            if (threads.size() < batchSize) {
+                // Reached the last post, start over next time
+                cursor = 0;
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        if (moved > 0) {
+            log.info("Archived {} comments in threads quiet since {}", moved, cutoff);
+        }
+    }
+
+    /**
+     * Moves the thread of an archived comment back to the hot table before it is written.
+     *
+     * @return false if the comment is not in the archive
+     */
+    public boolean restoreThreadOf(Long commentId) {
+        return commentArchiveRepository.findById(commentId)
+                .map(comment -> restoreThread(comment.getPostId()))
+                .orElse(false);
+    }
+
+    public boolean restoreThread(Long postId) {
+        return commentArchiveRepository.restoreThread(postId) > 0;
+    }
+
+    /**
+     * Comments of a post from both tables, in thread order.
+     */
+    static List<Comment> merge(List<Comment> hot, List<Comment> archived, int limit) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<Comment> comments = new ArrayList<>(hot.size() + archived.size());
+        comments.addAll(hot);
+        comments.addAll(archived);
+        comments.sort(THREAD_ORDER);
+        // A comment read from both sides while its thread was moving counts once
+        Set<Long> seen = new HashSet<>();
+        comments.removeIf(comment -> !seen.add(comment.getId()));
+        return comments.size() > limit ? new ArrayList<>(comments.subList(0, limit)) : comments;
+    }
+
+    static CommentsStamp combine(CommentsStamp hot, CommentsStamp archived) {
+        if (archived.getCount() == 0) {
+            return hot;
+        }
+        Long lastId = hot.getLastId() == null ? archived.getLastId() : Math.max(hot.getLastId(), archived.getLastId());
+        return new CombinedStamp(hot.getCount() + archived.getCount(), lastId);
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            // Shutting down; the remaining threads are picked up after the restart
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.Comment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous comment ingestion, enabled with comments.ingestion.mode=async.
+ *
+ * A new comment is appended to a local log ({@link CommentLog}), put on a
+ * bounded queue and acknowledged with a receipt id; a single writer thread
+ * stores queued comments in batches of up to batch-size, waiting at most
+ * max-delay for a batch to fill. When the queue is full, submit returns null
+ * and the caller should ask the client to retry later.
+ *
+ * Durability: once submit has returned a receipt the comment is in the log.
+ * With comments.ingestion.fsync=true (the default) the log has also been
+ * forced to disk, so the comment survives a crash of the machine; with
+ * fsync off it only survives a crash of the process. Log segments are deleted
+ * once every comment in them is in the database, and whatever is left at
+ * startup is replayed, skipping receipts that were already stored. The log
+ * is local, so each instance needs its own persistent log-dir.
+ */
+@Service
+public class CommentIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentIngestionService.class);
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${comments.ingestion.mode:sync}")
+    private String mode;
+
+    @Value("${comments.ingestion.log-dir:data/comment-log}")
+    private String logDir;
+
+    @Value("${comments.ingestion.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Value("${comments.ingestion.fsync:true}")
+    private boolean fsync;
+
+    @Value("${comments.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${comments.ingestion.batch-size:200}")
+    private int batchSize;
+
+    @Value("${comments.ingestion.max-delay:50ms}")
+    private Duration maxDelay;
+
+    @Value("${comments.ingestion.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    @Value("${comments.ingestion.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    record Entry(String receipt, Long postId, Long userId, String content, Long parentId, LocalDateTime createdAt) {
+    }
+
+    private record Queued(Comment comment, CommentLog.Segment segment) {
+    }
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private BlockingQueue<Queued> queue;
+    // Taken before appending to the log, so a comment is never logged without room in the queue
+    private Semaphore capacity;
+    private CommentLog commentLog;
+    private Thread writer;
+    private volatile boolean running;
+
+    public boolean isAsync() {
+        return "async".equalsIgnoreCase(mode);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!isAsync()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        capacity = new Semaphore(queueCapacity);
+        commentLog = new CommentLog(Path.of(logDir), segmentBytes, fsync);
+        List<Path> leftovers = commentLog.segments();
+        running = true;
+        writer = new Thread(() -> run(leftovers), "comment-ingestion");
+        writer.start();
+    }
+
+    /**
+     * Accepts a comment for asynchronous storage and returns its receipt, or
+     * null if the queue is full. Anything the writer could not store, such as
+     * a reply to a missing comment or an oversized body, is rejected here with
+     * an IllegalArgumentException, since after the receipt it could only be dropped.
+     */
+    public String submit(Comment comment) throws IOException, InterruptedException {
+        checkStorable(comment);
+        if (comment.getParentId() != null) {
+            Comment parent = commentService.findById(comment.getParentId())
+                    .orElseThrow(() -> new IllegalArgumentException("Parent comment not found"));
+            comment.setPostId(parent.getPostId());
+        }
+        if (!capacity.tryAcquire()) {
+            return null;
+        }
+        boolean queued = false;
+        try {
+            comment.setId(null);
+            comment.setReceipt(UUID.randomUUID().toString());
+            comment.setCreatedAt(LocalDateTime.now());
+            pending.add(comment.getReceipt());
+            CommentLog.Appended appended = commentLog.append(objectMapper.writeValueAsString(toEntry(comment)));
+            commentLog.awaitDurable(appended.sequence());
+            queue.add(new Queued(comment, appended.segment()));
+            queued = true;
+            return comment.getReceipt();
+        } finally {
+            if (!queued) {
+                // Anything already in the log is replayed on the next start
+                pending.remove(comment.getReceipt());
+                capacity.release();
+            }
+        }
+    }
+
+    private static void checkStorable(Comment comment) {
+        if (comment.getPostId() == null && comment.getParentId() == null) {
+            throw new IllegalArgumentException("A comment needs a postId or a parentId");
+        }
+        String content = comment.getContent();
+        if (content == null || content.isBlank()) {
+            throw new IllegalArgumentException("A comment needs content");
+        }
+        // UTF-16 units, at least as many as the characters the column counts
+        if (content.length() > Comment.MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("Comments are limited to " + Comment.MAX_CONTENT_LENGTH
+                    + " characters");
+        }
+    }
+
+    /**
+     * True while a submitted comment is still waiting to be stored.
+     */
+    public boolean isPending(String receipt) {
+        return pending.contains(receipt);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        // Drain what is queued; anything still unwritten after the timeout is replayed from the log
+        running = false;
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join();
+        }
+        commentLog.close();
+    }
+
+    private void run(List<Path> leftovers) {
+        try {
+            replay(leftovers);
+            List<Queued> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                Queued first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Queued next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                capacity.release(batch.size());
+                persist(batch.stream().map(Queued::comment).toList());
+                for (Queued done : batch) {
+                    pending.remove(done.comment().getReceipt());
+                    commentLog.persisted(done.segment());
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            log.warn("Comment ingestion stopped with {} comments queued, they will be replayed on the next start",
+                    pending.size());
+        } catch (IOException e) {
+            log.error("Comment ingestion stopped, the log could not be replayed", e);
+        }
+    }
+
+    /**
+     * Stores the comments of segments left over from an earlier run and deletes the segments.
+     */
+    void replay(List<Path> segments) throws IOException, InterruptedException {
+        for (Path segment : segments) {
+            List<Comment> comments = new ArrayList<>();
+            for (String line : CommentLog.readLines(segment)) {
+                comments.add(fromEntry(objectMapper.readValue(line, Entry.class)));
+            }
+            log.info("Replaying {} comments from {}", comments.size(), segment);
+            for (int from = 0; from < comments.size(); from += batchSize) {
+                List<Comment> chunk = comments.subList(from, Math.min(from + batchSize, comments.size()));
+                Set<String> stored = new HashSet<>(commentService.findExistingReceipts(
+                        chunk.stream().map(Comment::getReceipt).toList()));
+                persist(chunk.stream().filter(c -> !stored.contains(c.getReceipt())).toList());
+            }
+            CommentLog.delete(segment);
+        }
+    }
+
+    /**
+     * Stores a batch, returning once every comment is either stored or
+     * dropped. If the batch fails, the comments are retried one by one: a
+     * comment that fails on a constraint or on bad data is dropped, while any
+     * other failure means the database is unavailable and is retried after
+     * a backoff for as long as it takes.
+     */
+    private void persist(List<Comment> comments) throws InterruptedException {
+        if (comments.isEmpty()) {
+            return;
+        }
+        try {
+            logDropped(commentService.saveBatch(comments));
+            return;
+        } catch (RuntimeException e) {
+            if (comments.size() == 1 && isBadRow(e)) {
+                log.warn("Dropping comment {}: {}", comments.get(0).getReceipt(), e.getMessage());
+                return;
+            }
+            log.warn("Storing a batch of {} comments failed, retrying one by one: {}", comments.size(), e.getMessage());
+        }
+        for (Comment comment : comments) {
+            while (true) {
+                try {
+                    logDropped(commentService.saveBatch(List.of(comment)));
+                    break;
+                } catch (RuntimeException e) {
+                    if (isBadRow(e)) {
+                        log.warn("Dropping comment {}: {}", comment.getReceipt(), e.getMessage());
+                        break;
+                    }
+                    log.warn("Storing comment {} failed, retrying in {}: {}", comment.getReceipt(), retryBackoff,
+                            e.getMessage());
+                    Thread.sleep(retryBackoff.toMillis());
+                }
+            }
+        }
+    }
+
+    private static boolean isBadRow(RuntimeException e) {
+        // Connection and transaction failures say nothing about the comment itself
+        return e instanceof DataIntegrityViolationException
+                || !(e instanceof DataAccessException || e instanceof TransactionException);
+    }
+
+    private static void logDropped(List<Comment> dropped) {
+        for (Comment comment : dropped) {
+            log.warn("Dropping comment {}, its parent {} no longer exists", comment.getReceipt(), comment.getParentId());
+        }
+    }
+
+    private static Entry toEntry(Comment c) {
+        return new Entry(c.getReceipt(), c.getPostId(), c.getUserId(), c.getContent(), c.getParentId(), c.getCreatedAt());
+    }
+
+    private static Comment fromEntry(Entry entry) {
+        Comment comment = new Comment();
+        comment.setReceipt(entry.receipt());
+        comment.setPostId(entry.postId());
+        comment.setUserId(entry.userId());
+        comment.setContent(entry.content());
+        comment.setParentId(entry.parentId());
+        comment.setCreatedAt(entry.createdAt());
+        return comment;
+    }
+}
@@ -0,0 +1,215 @@
+package com.bloghive.commentservice.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of accepted comments, one JSON line per comment, split into
+ * numbered segment files.
+ *
+ * Appends go to the active segment; {@link #awaitDurable} waits until an
+ * append has been fsynced, and concurrent waiters share one fsync (group
+ * commit). A segment is deleted once it has been rotated out and every entry
+ * in it has been persisted to the database. Whatever is left on disk at
+ * startup is replayed.
+ */
+class CommentLog {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentLog.class);
+    private static final String SUFFIX = ".log";
+
+    static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private int pending;
+        private boolean sealed;
+
+        private Segment(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+    }
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final boolean fsync;
+
+    private Segment active;
+    private long nextSegment;
+    private long written;
+
+    // Guarded by syncLock
+    private final Object syncLock = new Object();
+    private long synced;
+    private boolean syncing;
+
+    CommentLog(Path dir, long maxSegmentBytes, boolean fsync) throws IOException {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.fsync = fsync;
+        Files.createDirectories(dir);
+        for (Path existing : segments()) {
+            nextSegment = Math.max(nextSegment, number(existing) + 1);
+        }
+    }
+
+    /**
+     * Segments left over from a previous run, oldest first. Call before the first append.
+     */
+    List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(number(a), number(b)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Reads the complete lines of a segment. A torn last line from a crash mid-write is skipped.
+     */
+    static List<String> readLines(Path segment) throws IOException {
+        List<String> lines = new ArrayList<>();
+        byte[] bytes = Files.readAllBytes(segment);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        try (BufferedReader reader = new BufferedReader(new StringReader(
+                new String(bytes, 0, end, StandardCharsets.UTF_8)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    static void delete(Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+    }
+
+    /**
+     * Appends one entry and returns the segment it went to together with its sequence number.
+     */
+    synchronized Appended append(String line) throws IOException {
+        if (active == null || active.channel.size() >= maxSegmentBytes) {
+            rotate();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            active.channel.write(buffer);
+        }
+        active.pending++;
+        return new Appended(active, ++written);
+    }
+
+    /**
+     * Blocks until the entry with the given sequence number is on disk. The
+     * first waiter forces the file for everyone who appended before it
+     * started; the others wait for that instead of issuing their own fsync.
+     */
+    void awaitDurable(long sequence) throws IOException, InterruptedException {
+        if (!fsync) {
+            return;
+        }
+        while (true) {
+            synchronized (syncLock) {
+                while (syncing && synced < sequence) {
+                    syncLock.wait();
+                }
+                if (synced >= sequence) {
+                    return;
+                }
+                syncing = true;
+            }
+            long target;
+            FileChannel channel;
+            synchronized (this) {
+                target = written;
+                channel = active.channel;
+            }
+            boolean done = false;
+            try {
+                channel.force(false);
+                done = true;
+            } catch (ClosedChannelException e) {
+                // Rotated meanwhile, and rotation forces the segment before closing it
+                done = true;
+            } finally {
+                synchronized (syncLock) {
+                    if (done) {
+                        synced = Math.max(synced, target);
+                    }
+                    syncing = false;
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    synchronized void persisted(Segment segment) {
+        segment.pending--;
+        deleteIfDone(segment);
+    }
+
+    synchronized void close() throws IOException {
+        if (active != null) {
+            active.channel.force(false);
+            active.channel.close();
+            active.sealed = true;
+            deleteIfDone(active);
+            active = null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (active != null) {
+            active.channel.force(false);
+            active.channel.close();
+            active.sealed = true;
+            deleteIfDone(active);
+        }
+        active = new Segment(dir.resolve(String.format("%012d%s", nextSegment++, SUFFIX)));
+    }
+
+    private void deleteIfDone(Segment segment) {
+        if (segment.sealed && segment.pending == 0) {
+            try {
+                delete(segment.path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring unexpected file {} in the comment log directory", segment);
+            return -1;
+        }
+    }
+
+    record Appended(Segment segment, long sequence) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.repositories.CommentArchiveRepository;
+import com.bloghive.commentservice.repositories.CommentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * User id of every comment, for ownership checks on deletes.
+ *
+ * A comment never changes owner, so entries cannot go stale and need neither
+ * a TTL nor invalidation across instances. Comments stored here are added
+ * when they are saved; others are loaded once, by primary key and a single
+ * column. Missing comments are not cached, so one stored by another instance
+ * is found as soon as it is committed.
+ */
+@Component
+public class CommentOwners {
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private CommentArchiveRepository commentArchiveRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${comments.owners.max-size:100000}")
+    private long maxSize;
+
+    private Cache<Long, Long> users;
+
+    @PostConstruct
+    void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "comments.owners");
+    }
+
+    /**
+     * Empty when the comment does not exist or has no owner. Blocks on a miss;
+     * the reactive profile uses {@link #cachedOwnerOf} and loads misses itself.
+     */
+    public Optional<Long> ownerOf(Long commentId) {
+        return Optional.ofNullable(users.get(commentId, id -> commentRepository.findUserIdById(id)
+                .or(() -> commentArchiveRepository.findUserIdById(id)).orElse(null)));
+    }
+
+    public Optional<Long> cachedOwnerOf(Long commentId) {
+        return Optional.ofNullable(users.getIfPresent(commentId));
+    }
+
+    public void remember(Long commentId, Long userId) {
+        if (commentId != null && userId != null) {
+            users.put(commentId, userId);
+        }
+    }
+
+    public void remember(Comment comment) {
+        remember(comment.getId(), comment.getUserId());
+    }
+
+    public void forget(Long commentId) {
+        users.invalidate(commentId);
+    }
+}
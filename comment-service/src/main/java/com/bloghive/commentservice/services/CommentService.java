@@ -1,27 +1,230 @@
 package com.bloghive.commentservice.services;
 
 import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import com.bloghive.commentservice.repositories.CommentArchiveRepository;
 import com.bloghive.commentservice.repositories.CommentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Comments live in the hot table or, once CommentArchiver has moved their
+ * thread, in the archive. Reads look at both; replies to and deletes of an
+ * archived comment move its thread back first.
+ */
 @Service
 public class CommentService {
 
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private PostStatsClient postStatsClient;
+
+    @Autowired
+    private CommentOwners commentOwners;
+
+    @Autowired
+    private CommentArchiveRepository commentArchiveRepository;
+
+    @Autowired
+    private CommentArchiver commentArchiver;
+
     public List<Comment> findByPostId(Long postId) {
-        return commentRepository.findByPostId(postId);
+        return CommentArchiver.merge(commentRepository.findByPostIdOrderByPathAscIdAsc(postId),
+                commentArchiveRepository.findByPostId(postId), Integer.MAX_VALUE);
+    }
+
+    public CommentsStamp getStampByPostId(Long postId) {
+        return CommentArchiver.combine(commentRepository.findStampByPostId(postId),
+                commentArchiveRepository.findStampByPostId(postId));
+    }
+
+    public Optional<Comment> findById(Long id) {
+        return commentRepository.findById(id).or(() -> commentArchiveRepository.findById(id));
+    }
+
+    public Optional<Comment> findByReceipt(String receipt) {
+        return commentRepository.findByReceipt(receipt);
+    }
+
+    public List<String> findExistingReceipts(Collection<String> receipts) {
+        return commentRepository.findExistingReceipts(receipts);
+    }
+
+    /**
+     * One page of a post's comments in thread order, starting after the given path.
+     */
+    public List<Comment> findThreadPage(Long postId, String after, int maxDepth, int limit) {
+        return findPage(postId, "%", after, maxDepth - 1, limit);
     }
 
+    /**
+     * One page of the replies below a comment in thread order. maxDepth is
+     * counted from the comment itself, so 1 returns only direct replies.
+     */
+    public List<Comment> findReplyPage(Comment root, String after, int maxDepth, int limit) {
+        String rootPath = pathOf(root);
+        String from = after.compareTo(rootPath) > 0 ? after : rootPath;
+        return findPage(root.getPostId(), rootPath + "%", from, root.getDepth() + maxDepth, limit);
+    }
+
+    private List<Comment> findPage(Long postId, String prefix, String after, int maxDepth, int limit) {
+        return CommentArchiver.merge(
+                commentRepository.findThreadPage(postId, prefix, after, maxDepth, PageRequest.ofSize(limit)),
+                commentArchiveRepository.findThreadPage(postId, prefix, after, maxDepth, limit), limit);
+    }
+
+    @Transactional
     public Comment save(Comment comment) {
-        return commentRepository.save(comment);
+        Comment parent = null;
+        if (comment.getParentId() != null) {
+            parent = findForWrite(comment.getParentId())
+                    .orElseThrow(() -> new RuntimeException("Parent comment not found"));
+            if (parent.getDepth() + 1 >= Comment.MAX_DEPTH) {
+                // Too deep, reply to the parent's parent instead
+                parent = findForWrite(parent.getParentId())
+                        .orElseThrow(() -> new RuntimeException("Parent comment not found"));
+            }
+            comment.setParentId(parent.getId());
+            comment.setPostId(parent.getPostId());
+        }
+        comment.setReplyCount(0);
+        comment.setDepth(parent != null ? parent.getDepth() + 1 : 0);
+        Comment saved = commentRepository.save(comment);
+
+        // The path needs the generated id, so it is filled in after the insert
+        saved.setPath((parent != null ? pathOf(parent) : "") + segment(saved.getId()));
+        if (parent != null) {
+            if (parent.getPath() == null) {
+                parent.setPath(pathOf(parent));
+            }
+            if (commentRepository.adjustReplyCount(parent.getId(), 1) == 0
+                    && commentArchiver.restoreThreadOf(parent.getId())) {
+                // The thread was archived after the parent was read
+                commentRepository.adjustReplyCount(parent.getId(), 1);
+            }
+        }
+        commentOwners.remember(saved);
+        postStatsClient.commentsChanged(saved.getPostId(), 1);
+        return saved;
+    }
+
+    /**
+     * Persists comments accepted by CommentIngestionService in one transaction:
+     * one multi-row insert plus batched path and reply count updates.
+     * Replies whose parent no longer exists are dropped and returned.
+     */
+    @Transactional
+    public List<Comment> saveBatch(List<Comment> comments) {
+        Set<Long> parentIds = new HashSet<>();
+        comments.forEach(c -> {
+            if (c.getParentId() != null) {
+                parentIds.add(c.getParentId());
+            }
+        });
+        Map<Long, Comment> parents = new HashMap<>();
+        commentRepository.findAllById(parentIds).forEach(p -> parents.put(p.getId(), p));
+        parentIds.removeAll(parents.keySet());
+        // Replies to archived comments move their threads back first
+        parentIds.removeIf(id -> !commentArchiver.restoreThreadOf(id));
+        if (!parentIds.isEmpty()) {
+            commentRepository.findAllById(parentIds).forEach(p -> parents.put(p.getId(), p));
+        }
+
+        List<Comment> accepted = new ArrayList<>();
+        List<Comment> dropped = new ArrayList<>();
+        for (Comment comment : comments) {
+            Comment parent = null;
+            if (comment.getParentId() != null) {
+                parent = parents.get(comment.getParentId());
+                if (parent != null && parent.getDepth() + 1 >= Comment.MAX_DEPTH) {
+                    parent = parents.computeIfAbsent(parent.getParentId(),
+                            id -> findForWrite(id).orElse(null));
+                }
+                if (parent == null) {
+                    dropped.add(comment);
+                    continue;
+                }
+                comment.setParentId(parent.getId());
+                comment.setPostId(parent.getPostId());
+            }
+            comment.setDepth(parent != null ? parent.getDepth() + 1 : 0);
+            accepted.add(comment);
+        }
+
+        commentRepository.insertAll(accepted);
+        Map<Long, Integer> replies = new HashMap<>();
+        Map<Long, Integer> perPost = new HashMap<>();
+        for (Comment comment : accepted) {
+            Comment parent = comment.getParentId() != null ? parents.get(comment.getParentId()) : null;
+            comment.setPath((parent != null ? pathOf(parent) : "") + segment(comment.getId()));
+            if (parent != null) {
+                replies.merge(parent.getId(), 1, Integer::sum);
+            }
+            perPost.merge(comment.getPostId(), 1, Integer::sum);
+            commentOwners.remember(comment);
+        }
+        commentRepository.updatePaths(accepted);
+        commentRepository.adjustReplyCounts(replies);
+        perPost.forEach(postStatsClient::commentsChanged);
+        return dropped;
     }
 
+    /**
+     * Deletes a comment together with all replies below it.
+     */
+    @Transactional
     public void deleteById(Long id) {
-        commentRepository.deleteById(id);
+        findForWrite(id).ifPresent(comment -> {
+            int deleted = 1;
+            if (comment.getPath() != null) {
+                deleted = commentRepository.deleteSubtree(comment.getPostId(), comment.getPath() + "%");
+            } else {
+                // Pre-threading comment, nobody has replied to it yet
+                commentRepository.delete(comment);
+            }
+            postStatsClient.commentsChanged(comment.getPostId(), -deleted);
+            if (comment.getParentId() != null) {
+                commentRepository.adjustReplyCount(comment.getParentId(), -1);
+            }
+            // Replies below stay cached; their ids are never reused
+            commentOwners.forget(id);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillRootPaths() {
+        commentRepository.backfillRootPaths();
+    }
+
+    private Optional<Comment> findForWrite(Long id) {
+        Optional<Comment> comment = commentRepository.findById(id);
+        if (comment.isEmpty() && commentArchiver.restoreThreadOf(id)) {
+            comment = commentRepository.findById(id);
+        }
+        return comment;
+    }
+
+    private static String pathOf(Comment comment) {
+        return comment.getPath() != null ? comment.getPath() : segment(comment.getId());
+    }
+
+    private static String segment(Long id) {
+        return String.format("%0" + Comment.PATH_SEGMENT_DIGITS + "d/", id);
     }
 }
@@ -0,0 +1,273 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.IdempotencyRecord;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicates writes sent with an Idempotency-Key.
+ *
+ * The first request for a key claims it with an insert into
+ * idempotency_record, which also settles races between instances. Its
+ * response is stored there and in a bounded in-memory cache, and replayed
+ * to every retry until the record expires. A duplicate that arrives while
+ * the first is still running (a retry after a timeout, or a hedged request)
+ * waits for it on this instance, or gets 409 from another one. Server
+ * errors are not stored, so the client can simply try again.
+ *
+ * The TTL and the cache size follow configuration refreshes.
+ */
+@Service
+public class IdempotencyService {
+
+    public enum Outcome {
+        PROCEED,
+        REPLAY,
+        IN_PROGRESS,
+        MISMATCH
+    }
+
+    public static class Decision {
+        private final Outcome outcome;
+        private final IdempotencyRecord response;
+
+        Decision(Outcome outcome, IdempotencyRecord response) {
+            this.outcome = outcome;
+            this.response = response;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public IdempotencyRecord getResponse() {
+            return response;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    // A claim older than this is taken to belong to a crashed request
+    @Value("${idempotency.lease:60s}")
+    private Duration lease;
+
+    @Value("${idempotency.wait:10s}")
+    private Duration wait;
+
+    private record Settings(Duration ttl, long cacheMaxBytes) {
+        static Settings from(Environment environment) {
+            Binder binder = Binder.get(environment);
+            return new Settings(
+                    binder.bind("idempotency.ttl", Duration.class).orElse(Duration.ofHours(24)),
+                    binder.bind("idempotency.cache-max-bytes", Long.class).orElse(16L * 1024 * 1024));
+        }
+    }
+
+    private volatile Settings settings;
+    private Cache<String, IdempotencyRecord> completed;
+
+    // Requests being processed on this instance; duplicates wait on these
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        settings = Settings.from(environment);
+        completed = Caffeine.newBuilder()
+                .maximumWeight(settings.cacheMaxBytes())
+                .weigher((String key, IdempotencyRecord r) -> 128 + (r.getBody() != null ? r.getBody().length : 0)
+                        + (r.getHeaders() != null ? r.getHeaders().length() : 0))
+                .expireAfterWrite(settings.ttl())
+                .build();
+    }
+
+    /**
+     * Picks up a new TTL and cache size after a configuration refresh. Records
+     * already stored keep the expiry they were stored with.
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().noneMatch(key -> key.startsWith("idempotency."))) {
+            return;
+        }
+        Settings next = Settings.from(environment);
+        completed.policy().eviction().ifPresent(eviction -> eviction.setMaximum(next.cacheMaxBytes()));
+        completed.policy().expireAfterWrite().ifPresent(expiry -> expiry.setExpiresAfter(next.ttl()));
+        settings = next;
+    }
+
+    public Decision begin(String keyHash, String requestHash) throws InterruptedException {
+        IdempotencyRecord done = completed.getIfPresent(keyHash);
+        if (done != null && isExpired(done, LocalDateTime.now())) {
+            // Cached under a longer TTL than the record was stored with
+            completed.invalidate(keyHash);
+            done = null;
+        }
+        if (done != null) {
+            return replay(done, requestHash);
+        }
+
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(keyHash, mine);
+        if (running != null) {
+            return awaitRunning(keyHash, requestHash, running);
+        }
+
+        Decision decision = claim(keyHash, requestHash);
+        if (decision.getOutcome() != Outcome.PROCEED) {
+            inFlight.remove(keyHash, mine);
+            mine.complete(decision.getOutcome() == Outcome.REPLAY ? decision.getResponse() : null);
+        }
+        return decision;
+    }
+
+    /**
+     * Stores the response of a request that returned PROCEED, or releases the key on a server error.
+     */
+    public void complete(String keyHash, String requestHash, int status, String contentType, String headers,
+            byte[] body) {
+        if (status >= 500) {
+            abandon(keyHash);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKeyHash(keyHash);
+        record.setRequestHash(requestHash);
+        record.setCompleted(true);
+        record.setStatus(status);
+        record.setContentType(contentType);
+        record.setHeaders(headers);
+        record.setBody(body);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plus(settings.ttl()));
+        jdbcTemplate.update("UPDATE idempotency_record SET completed = TRUE, status = ?, content_type = ?, headers = ?, "
+                + "body = ?, expires_at = ? WHERE key_hash = ?", status, contentType, headers, body, record.getExpiresAt(), keyHash);
+        completed.put(keyHash, record);
+        finish(keyHash, record);
+    }
+
+    /**
+     * Releases the key after a failure, so the client may retry it.
+     */
+    public void abandon(String keyHash) {
+        jdbcTemplate.update("DELETE FROM idempotency_record WHERE key_hash = ? AND completed = FALSE", keyHash);
+        finish(keyHash, null);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:1h}")
+    public void deleteExpired() {
+        jdbcTemplate.update("DELETE FROM idempotency_record WHERE expires_at < ?", LocalDateTime.now());
+    }
+
+    private Decision claim(String keyHash, String requestHash) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_record (key_hash, request_hash, completed, status, "
+                        + "created_at, expires_at) VALUES (?, ?, FALSE, 0, ?, ?)",
+                        keyHash, requestHash, now, now.plus(settings.ttl()));
+                return new Decision(Outcome.PROCEED, null);
+            } catch (DuplicateKeyException e) {
+                IdempotencyRecord existing = load(keyHash);
+                if (existing == null) {
+                    continue;
+                }
+                if (isExpired(existing, now)) {
+                    // Past its TTL but not yet cleaned up; the key is free again
+                    jdbcTemplate.update("DELETE FROM idempotency_record WHERE key_hash = ? AND expires_at = ?",
+                            keyHash, existing.getExpiresAt());
+                    continue;
+                }
+                if (existing.isCompleted()) {
+                    completed.put(keyHash, existing);
+                    return replay(existing, requestHash);
+                }
+                if (!existing.getRequestHash().equals(requestHash)) {
+                    return new Decision(Outcome.MISMATCH, null);
+                }
+                if (existing.getCreatedAt().isAfter(now.minus(lease))) {
+                    return new Decision(Outcome.IN_PROGRESS, null);
+                }
+                // The instance that claimed it died before answering; take it over
+                jdbcTemplate.update("DELETE FROM idempotency_record WHERE key_hash = ? AND completed = FALSE "
+                        + "AND created_at = ?", keyHash, existing.getCreatedAt());
+            }
+        }
+        return new Decision(Outcome.IN_PROGRESS, null);
+    }
+
+    private Decision awaitRunning(String keyHash, String requestHash, CompletableFuture<IdempotencyRecord> running)
+            throws InterruptedException {
+        try {
+            IdempotencyRecord result = running.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+            if (result == null) {
+                // The first attempt failed or was rejected; this one starts over
+                return begin(keyHash, requestHash);
+            }
+            return replay(result, requestHash);
+        } catch (TimeoutException | ExecutionException e) {
+            return new Decision(Outcome.IN_PROGRESS, null);
+        }
+    }
+
+    private void finish(String keyHash, IdempotencyRecord result) {
+        CompletableFuture<IdempotencyRecord> running = inFlight.remove(keyHash);
+        if (running != null) {
+            running.complete(result);
+        }
+    }
+
+    private IdempotencyRecord load(String keyHash) {
+        List<IdempotencyRecord> rows = jdbcTemplate.query("SELECT * FROM idempotency_record WHERE key_hash = ?",
+                (rs, rowNum) -> {
+                    IdempotencyRecord r = new IdempotencyRecord();
+                    r.setKeyHash(rs.getString("key_hash"));
+                    r.setRequestHash(rs.getString("request_hash"));
+                    r.setCompleted(rs.getBoolean("completed"));
+                    r.setStatus(rs.getInt("status"));
+                    r.setContentType(rs.getString("content_type"));
+                    r.setHeaders(rs.getString("headers"));
+                    r.setBody(rs.getBytes("body"));
+                    r.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+                    r.setExpiresAt(rs.getObject("expires_at", LocalDateTime.class));
+                    return r;
+                }, keyHash);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static boolean isExpired(IdempotencyRecord record, LocalDateTime now) {
+        return record.getExpiresAt() != null && record.getExpiresAt().isBefore(now);
+    }
+
+    private static Decision replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            return new Decision(Outcome.MISMATCH, null);
+        }
+        return new Decision(Outcome.REPLAY, record);
+    }
+}
@@ -0,0 +1,103 @@
+package com.bloghive.commentservice.services;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.context.ContextExecutorService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClient;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tells post-service how many comments a post gained or lost, for the author dashboard.
+ *
+ * Reports are sent after the comment transaction commits, from a single
+ * background thread, so a slow or unavailable post-service never delays or
+ * fails a comment. They are best effort: a report that fails is logged and dropped.
+ * Calls are signed with a short-lived token carrying the SERVICE authority,
+ * which user tokens never have.
+ */
+@Component
+public class PostStatsClient {
+
+    private static final Logger log = LoggerFactory.getLogger(PostStatsClient.class);
+    private static final long TOKEN_MILLIS = 5 * 60 * 1000;
+
+    @Autowired
+    private RestClient.Builder restClientBuilder;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${comments.stats.enabled:true}")
+    private boolean enabled;
+
+    @Value("${comments.stats.post-service-url:http://post-service}")
+    private String postServiceUrl;
+
+    // Reports carry the trace of the comment request that caused them
+    private final ExecutorService executor = ContextExecutorService.wrap(Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "post-stats-client");
+        thread.setDaemon(true);
+        return thread;
+    }));
+
+    public void commentsChanged(Long postId, long delta) {
+        if (!enabled || postId == null || delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(() -> send(postId, delta));
+                }
+            });
+        } else {
+            executor.execute(() -> send(postId, delta));
+        }
+    }
+
+    private void send(Long postId, long delta) {
+        try {
+            restClientBuilder.build().post()
+                    .uri(postServiceUrl + "/authors/stats/comment-events")
+                    .header("Authorization", "Bearer " + serviceToken())
+                    .body(Map.of("postId", postId, "delta", delta))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RuntimeException e) {
+            log.warn("Could not report {} comments on post {} to post-service: {}", delta, postId, e.getMessage());
+        }
+    }
+
+    private String serviceToken() {
+        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject("comment-service")
+                .claim("authorities", List.of("SERVICE"))
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + TOKEN_MILLIS))
+                .signWith(key)
+                .compact();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
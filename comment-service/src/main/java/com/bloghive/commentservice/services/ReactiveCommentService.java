@@ -0,0 +1,200 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import com.bloghive.commentservice.repositories.ReactiveCommentRepository;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of CommentService for the reactive profile, with
+ * the same rules for threading replies.
+ *
+ * Transactions go through an operator over its own R2dbcTransactionManager
+ * rather than @Transactional: the JPA transaction manager stays the only
+ * TransactionManager bean, so the blocking parts of the service (ingestion,
+ * idempotency records) keep working unchanged.
+ *
+ * Reads look at archived threads too, like CommentService, and stream the
+ * two tables merged in thread order. A write to an archived thread moves it
+ * back through R2DBC in the write's own transaction.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCommentService {
+
+    @Autowired
+    private ReactiveCommentRepository commentRepository;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private PostStatsClient postStatsClient;
+
+    @Autowired
+    private CommentOwners commentOwners;
+
+    private TransactionalOperator transactions;
+
+    @PostConstruct
+    void init() {
+        transactions = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    public Flux<Comment> findByPostId(Long postId) {
+        return merge(commentRepository.findByPostIdOrderByPathAscIdAsc(postId),
+                commentRepository.findArchivedByPostId(postId), Integer.MAX_VALUE);
+    }
+
+    public Mono<CommentsStamp> getStampByPostId(Long postId) {
+        return Mono.zip(commentRepository.findStampByPostId(postId),
+                commentRepository.findArchivedStampByPostId(postId), CommentArchiver::combine);
+    }
+
+    public Mono<Comment> findById(Long id) {
+        return commentRepository.findById(id).switchIfEmpty(Mono.defer(() -> commentRepository.findArchivedById(id)));
+    }
+
+    /**
+     * Owner of a comment for authorization, from CommentOwners when it is known there.
+     */
+    public Mono<Long> findOwnerById(Long id) {
+        return Mono.justOrEmpty(commentOwners.cachedOwnerOf(id))
+                .switchIfEmpty(Mono.defer(() -> commentRepository.findUserIdById(id)
+                        .switchIfEmpty(Mono.defer(() -> commentRepository.findArchivedUserIdById(id)))
+                        .doOnNext(userId -> commentOwners.remember(id, userId))));
+    }
+
+    public Mono<Comment> findByReceipt(String receipt) {
+        return commentRepository.findByReceipt(receipt);
+    }
+
+    public Flux<Comment> findThreadPage(Long postId, String after, int maxDepth, int limit) {
+        return findPage(postId, "%", after, maxDepth - 1, limit);
+    }
+
+    public Flux<Comment> findReplyPage(Comment root, String after, int maxDepth, int limit) {
+        String rootPath = pathOf(root);
+        String from = after.compareTo(rootPath) > 0 ? after : rootPath;
+        return findPage(root.getPostId(), rootPath + "%", from, root.getDepth() + maxDepth, limit);
+    }
+
+    public Mono<Comment> save(Comment comment) {
+        Mono<Optional<Comment>> parentOf = comment.getParentId() == null
+                ? Mono.just(Optional.empty())
+                : findParent(comment.getParentId())
+                        .flatMap(parent -> parent.getDepth() + 1 >= Comment.MAX_DEPTH
+                                // Too deep, reply to the parent's parent instead
+                                ? findParent(parent.getParentId())
+                                : Mono.just(parent))
+                        .map(Optional::of);
+
+        // Replies to an archived thread move it back first
+        Mono<Long> unarchived = comment.getParentId() != null
+                ? commentRepository.restoreThreadOf(comment.getParentId())
+                : Mono.empty();
+        return unarchived.then(parentOf)
+                .flatMap(parent -> {
+                    parent.ifPresent(p -> {
+                        comment.setParentId(p.getId());
+                        comment.setPostId(p.getPostId());
+                    });
+                    comment.setReplyCount(0);
+                    comment.setDepth(parent.map(p -> p.getDepth() + 1).orElse(0));
+                    comment.setCreatedAt(LocalDateTime.now());
+                    String parentPath = parent.map(ReactiveCommentService::pathOf).orElse("");
+                    // The path needs the generated id, so it is filled in after the insert
+                    return commentRepository.insert(comment).flatMap(saved -> {
+                        saved.setPath(parentPath + segment(saved.getId()));
+                        Mono<Long> updates = commentRepository.updatePath(saved.getId(), saved.getPath());
+                        if (saved.getParentId() != null) {
+                            updates = updates.then(adjustReplyCount(saved.getParentId()));
+                        }
+                        return updates.thenReturn(saved);
+                    });
+                })
+                .as(transactions::transactional)
+                .doOnSuccess(saved -> {
+                    commentOwners.remember(saved);
+                    postStatsClient.commentsChanged(saved.getPostId(), 1);
+                });
+    }
+
+    /**
+     * Deletes a comment together with all replies below it.
+     */
+    public Mono<Void> deleteById(Long id) {
+        return commentRepository.findById(id)
+                // An archived comment's thread moves back first
+                .switchIfEmpty(Mono.defer(() -> commentRepository.restoreThreadOf(id)
+                        .filter(restored -> restored > 0)
+                        .flatMap(restored -> commentRepository.findById(id))))
+                .flatMap(comment -> {
+                    Mono<Long> deleted = comment.getPath() != null
+                            ? commentRepository.deleteSubtree(comment.getPostId(), comment.getPath() + "%")
+                            // Pre-threading comment, nobody has replied to it yet
+                            : commentRepository.deleteById(comment.getId()).thenReturn(1L);
+                    return deleted.flatMap(count -> comment.getParentId() != null
+                            ? commentRepository.adjustReplyCount(comment.getParentId(), -1).thenReturn(count)
+                            : Mono.just(count))
+                            .map(count -> Tuples.of(comment.getPostId(), count));
+                })
+                .as(transactions::transactional)
+                .doOnSuccess(deleted -> {
+                    if (deleted != null) {
+                        commentOwners.forget(id);
+                        postStatsClient.commentsChanged(deleted.getT1(), -deleted.getT2());
+                    }
+                })
+                .then();
+    }
+
+    private Flux<Comment> findPage(Long postId, String prefix, String after, int maxDepth, int limit) {
+        return merge(commentRepository.findThreadPage(postId, prefix, after, maxDepth, limit),
+                commentRepository.findArchivedThreadPage(postId, prefix, after, maxDepth, limit), limit);
+    }
+
+    // Both sides come sorted in thread order, so this streams without buffering either of them
+    private static Flux<Comment> merge(Flux<Comment> hot, Flux<Comment> archived, int limit) {
+        return Flux.mergeComparing(CommentArchiver.THREAD_ORDER, hot, archived)
+                // A comment read from both sides while its thread was moving counts once
+                .distinctUntilChanged(Comment::getId)
+                .take(limit);
+    }
+
+    private Mono<Long> adjustReplyCount(Long parentId) {
+        return commentRepository.adjustReplyCount(parentId, 1)
+                .flatMap(updated -> updated > 0
+                        ? Mono.just(updated)
+                        // The thread was archived after the parent was read
+                        : commentRepository.restoreThreadOf(parentId)
+                                .flatMap(restored -> restored > 0
+                                        ? commentRepository.adjustReplyCount(parentId, 1)
+                                        : Mono.just(updated)));
+    }
+
+    private Mono<Comment> findParent(Long id) {
+        return commentRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Parent comment not found")));
+    }
+
+    private static String pathOf(Comment comment) {
+        return comment.getPath() != null ? comment.getPath() : segment(comment.getId());
+    }
+
+    private static String segment(Long id) {
+        return String.format("%0" + Comment.PATH_SEGMENT_DIGITS + "d/", id);
+    }
+}
@@ -0,0 +1,83 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Brings a comment table created by Hibernate auto-DDL before the migrations
+ * up to the V1 schema. V1 leaves such a table alone (CREATE TABLE IF NOT
+ * EXISTS), so it still has only the flat columns, and neither the threading
+ * columns that ddl-auto: validate expects nor the indexes V1 declares inline.
+ *
+ * Java rather than SQL because MySQL has no ADD COLUMN IF NOT EXISTS or
+ * CREATE INDEX IF NOT EXISTS, and databases built by V1 already have all of it.
+ */
+public class V4__upgrade_auto_ddl_comment extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        Set<String> columns = columns(connection, "comment");
+        Set<String> indexes = indexes(connection, "comment");
+        try (Statement statement = connection.createStatement()) {
+            addColumn(statement, columns, "parent_id", "BIGINT");
+            // Root paths are filled in by CommentService.backfillRootPaths at startup
+            addColumn(statement, columns, "path", "VARCHAR(368)");
+            addColumn(statement, columns, "depth", "INTEGER NOT NULL DEFAULT 0");
+            addColumn(statement, columns, "reply_count", "INTEGER NOT NULL DEFAULT 0");
+            addColumn(statement, columns, "receipt", "VARCHAR(36)");
+            if (!indexes.contains("idx_comment_post_path")) {
+                statement.execute("CREATE INDEX idx_comment_post_path ON comment (post_id, path)");
+            }
+            if (!indexes.contains("uk_comment_receipt")) {
+                statement.execute("CREATE UNIQUE INDEX uk_comment_receipt ON comment (receipt)");
+            }
+        }
+    }
+
+    private static void addColumn(Statement statement, Set<String> columns, String name, String definition)
+            throws SQLException {
+        if (!columns.contains(name)) {
+            statement.execute("ALTER TABLE comment ADD COLUMN " + name + " " + definition);
+        }
+    }
+
+    private static Set<String> columns(Connection connection, String table) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        Set<String> columns = new HashSet<>();
+        try (ResultSet rs = meta.getColumns(connection.getCatalog(), connection.getSchema(), name(meta, table),
+                null)) {
+            while (rs.next()) {
+                columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns;
+    }
+
+    private static Set<String> indexes(Connection connection, String table) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        Set<String> indexes = new HashSet<>();
+        try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(), name(meta, table),
+                false, false)) {
+            while (rs.next()) {
+                if (rs.getString("INDEX_NAME") != null) {
+                    indexes.add(rs.getString("INDEX_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private static String name(DatabaseMetaData meta, String table) throws SQLException {
+        return meta.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+    }
+}
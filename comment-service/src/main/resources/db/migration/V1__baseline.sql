@@ -0,0 +1,35 @@
+-- Schema as Hibernate auto-DDL created it before migrations were introduced.
+-- IF NOT EXISTS lets databases created that way adopt the migrations (they are
+-- baselined at version 0, see application.yml) while new databases are built here.
+
+CREATE TABLE IF NOT EXISTS comment (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    post_id BIGINT,
+    user_id BIGINT,
+    content VARCHAR(255),
+    parent_id BIGINT,
+    -- Comment.PATH_SEGMENT_DIGITS + 1 characters per level, Comment.MAX_DEPTH levels
+    path VARCHAR(368),
+    depth INTEGER NOT NULL,
+    reply_count INTEGER NOT NULL,
+    created_at DATETIME(6),
+    receipt VARCHAR(36),
+    PRIMARY KEY (id),
+    -- Covers findByPostId (ordered by path, then the implicit primary key),
+    -- the per-post count and max id, thread pages and subtree deletes
+    INDEX idx_comment_post_path (post_id, path),
+    UNIQUE INDEX uk_comment_receipt (receipt)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS idempotency_record (
+    key_hash VARCHAR(64) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    completed BIT NOT NULL,
+    status INTEGER NOT NULL,
+    content_type VARCHAR(255),
+    body LONGBLOB,
+    created_at DATETIME(6),
+    expires_at DATETIME(6),
+    PRIMARY KEY (key_hash),
+    INDEX idx_idempotency_expires (expires_at)
+) ENGINE=InnoDB;
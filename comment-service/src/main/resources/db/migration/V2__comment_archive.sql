@@ -0,0 +1,20 @@
+-- Threads moved out of the hot table by CommentArchiver. Same columns and ids, so a
+-- thread can move back when someone replies to it or deletes from it. Receipts only
+-- guard against retried submissions, which archived threads no longer see, so they
+-- are kept without the unique index.
+CREATE TABLE comment_archive (
+    id BIGINT NOT NULL,
+    post_id BIGINT,
+    user_id BIGINT,
+    content VARCHAR(255),
+    parent_id BIGINT,
+    path VARCHAR(368),
+    depth INTEGER NOT NULL,
+    reply_count INTEGER NOT NULL,
+    created_at DATETIME(6),
+    receipt VARCHAR(36),
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    -- Same lookups as on comment: whole threads, thread pages and the per-post stamp
+    INDEX idx_comment_archive_post_path (post_id, path)
+) ENGINE=InnoDB;
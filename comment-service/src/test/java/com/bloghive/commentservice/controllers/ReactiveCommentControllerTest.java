@@ -0,0 +1,176 @@
+package com.bloghive.commentservice.controllers;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.repositories.CommentArchiveRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:comments-reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///comments-reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "comments.stats.enabled=false"})
+@ActiveProfiles("reactive")
+class ReactiveCommentControllerTest {
+
+    private static final long USER_ID = 41;
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private CommentArchiveRepository commentArchiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    void writesNeedATokenAndReadsDoNot() {
+        client.post().uri("/comments").bodyValue(Map.of("postId", 1, "content", "anonymous"))
+                .exchange()
+                .expectStatus().isForbidden();
+        client.post().uri("/comments").header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token")
+                .bodyValue(Map.of("postId", 1, "content", "forged"))
+                .exchange()
+                .expectStatus().isForbidden();
+        client.get().uri("/comments/post/1").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void repliesAreThreadedAndListsAreConditional() {
+        Comment root = create(Map.of("postId", 7, "content", "root"));
+        Comment reply = create(Map.of("parentId", root.getId(), "content", "reply"));
+
+        assertEquals(7L, reply.getPostId());
+        assertEquals(1, reply.getDepth());
+        assertEquals(root.getPath() + String.format("%010d/", reply.getId()), reply.getPath());
+
+        String etag = client.get().uri("/comments/post/7")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.noCache())
+                .expectBodyList(Comment.class)
+                .value(comments -> {
+                    assertEquals(List.of(root.getId(), reply.getId()), comments.stream().map(Comment::getId).toList());
+                    assertEquals(1, comments.get(0).getReplyCount());
+                })
+                .returnResult().getResponseHeaders().getETag();
+        client.get().uri("/comments/post/7").header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        client.delete().uri("/comments/" + root.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                .exchange()
+                .expectStatus().isOk();
+        client.get().uri("/comments/post/7").exchange().expectBodyList(Comment.class).hasSize(0);
+    }
+
+    @Test
+    void archivedThreadsAreListedAndMoveBackOnReply() {
+        Comment root = create(Map.of("postId", 13, "content", "root"));
+        Comment reply = create(Map.of("parentId", root.getId(), "content", "reply"));
+        Comment late = create(Map.of("postId", 13, "content", "late root"));
+        // Archive the first thread only, as if the late root arrived while it was moving
+        commentArchiveRepository.archiveThreads(List.of(13L), LocalDateTime.now().plusMinutes(1));
+        jdbcTemplate.update("INSERT INTO comment (id, post_id, user_id, content, path, depth, reply_count) "
+                + "SELECT id, post_id, user_id, content, path, depth, reply_count FROM comment_archive WHERE id = ?",
+                late.getId());
+        jdbcTemplate.update("DELETE FROM comment_archive WHERE id = ?", late.getId());
+
+        client.get().uri("/comments/post/13")
+                .exchange()
+                .expectBodyList(Comment.class)
+                .value(comments -> assertEquals(List.of(root.getId(), reply.getId(), late.getId()),
+                        comments.stream().map(Comment::getId).toList()));
+
+        Comment second = create(Map.of("parentId", root.getId(), "content", "second reply"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comment_archive", Long.class));
+        client.get().uri("/comments/post/13")
+                .exchange()
+                .expectBodyList(Comment.class)
+                .value(comments -> {
+                    assertEquals(List.of(root.getId(), reply.getId(), second.getId(), late.getId()),
+                            comments.stream().map(Comment::getId).toList());
+                    assertEquals(2, comments.get(0).getReplyCount());
+                });
+    }
+
+    @Test
+    void idempotencyKeyReplaysTheFirstResponse() {
+        Map<String, Object> body = Map.of("postId", 9, "content", "once");
+        Comment first = client.post().uri("/comments").header(HttpHeaders.AUTHORIZATION, bearer())
+                .header("Idempotency-Key", "reactive-key-1").bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Comment.class).returnResult().getResponseBody();
+
+        client.post().uri("/comments").header(HttpHeaders.AUTHORIZATION, bearer())
+                .header("Idempotency-Key", "reactive-key-1").bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Idempotent-Replayed", "true")
+                .expectBody(Comment.class).value(replayed -> assertEquals(first.getId(), replayed.getId()));
+
+        client.post().uri("/comments").header(HttpHeaders.AUTHORIZATION, bearer())
+                .header("Idempotency-Key", "reactive-key-1").bodyValue(Map.of("postId", 9, "content", "changed"))
+                .exchange()
+                .expectStatus().isEqualTo(422);
+        client.get().uri("/comments/post/9").exchange().expectBodyList(Comment.class).hasSize(1);
+    }
+
+    @Test
+    void onlyTheAuthorMayDeleteAComment() {
+        Comment comment = create(Map.of("postId", 11, "content", "mine"));
+        assertEquals(Long.valueOf(USER_ID), comment.getUserId());
+
+        client.delete().uri("/comments/" + comment.getId()).header(HttpHeaders.AUTHORIZATION, bearer(USER_ID + 1))
+                .exchange()
+                .expectStatus().isForbidden();
+        client.get().uri("/comments/post/11").exchange().expectBodyList(Comment.class).hasSize(1);
+
+        client.delete().uri("/comments/" + comment.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                .exchange()
+                .expectStatus().isOk();
+        client.get().uri("/comments/post/11").exchange().expectBodyList(Comment.class).hasSize(0);
+    }
+
+    private Comment create(Map<String, Object> body) {
+        return client.post().uri("/comments").header(HttpHeaders.AUTHORIZATION, bearer()).bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Comment.class).returnResult().getResponseBody();
+    }
+
+    private String bearer() {
+        return bearer(USER_ID);
+    }
+
+    private String bearer(long userId) {
+        return "Bearer " + Jwts.builder()
+                .setSubject("reactive-user")
+                .claim("userId", userId)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
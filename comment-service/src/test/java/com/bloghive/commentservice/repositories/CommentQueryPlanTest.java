@@ -0,0 +1,115 @@
+package com.bloghive.commentservice.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the comment queries against a seeded database and fails if the
+ * statements Hibernate sends stop using their index. The plans come from
+ * H2, so this catches missing indexes and queries written so that no index
+ * applies, not MySQL-specific optimizer choices.
+ */
+@SpringBootTest(properties = {
+        "comments.stats.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:comment-plans;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bloghive.commentservice.repositories.CommentQueryPlanTest$Recorder"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CommentQueryPlanTest {
+
+    private static final int COMMENTS = 20_000;
+    private static final int POSTS = 200;
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private final List<String> receipts = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> comments = new ArrayList<>();
+        for (int i = 1; i <= COMMENTS; i++) {
+            String receipt = UUID.randomUUID().toString();
+            receipts.add(receipt);
+            comments.add(new Object[] {
+                    (long) (i % POSTS), "Comment " + i, String.format("%010d/", i), now, receipt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO comment (post_id, user_id, content, path, depth, reply_count, "
+                + "created_at, receipt) VALUES (?, 1, ?, ?, 0, 0, ?, ?)", comments);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void commentsOfAPostUseThePathIndex() {
+        assertPlan(() -> commentRepository.findByPostIdOrderByPathAscIdAsc(7L), "IDX_COMMENT_POST_PATH", 7L);
+    }
+
+    @Test
+    void postStampUsesThePathIndex() {
+        assertPlan(() -> commentRepository.findStampByPostId(7L), "IDX_COMMENT_POST_PATH", 7L);
+    }
+
+    @Test
+    void threadPagesUseThePathIndex() {
+        assertPlan(() -> commentRepository.findThreadPage(7L, "%", "", 3, PageRequest.ofSize(50)),
+                "IDX_COMMENT_POST_PATH", 7L, "%", "", 3, 50);
+    }
+
+    @Test
+    @Transactional
+    void subtreeDeletesUseThePathIndex() {
+        assertPlan(() -> commentRepository.deleteSubtree(7L, "0000000007/%"),
+                "IDX_COMMENT_POST_PATH", 7L, "0000000007/%");
+    }
+
+    @Test
+    void receiptLookupsUseTheReceiptIndex() {
+        String receipt = receipts.get(7);
+        assertPlan(() -> commentRepository.findByReceipt(receipt), "UK_COMMENT_RECEIPT", receipt);
+        List<String> batch = receipts.subList(10, 13);
+        assertPlan(() -> commentRepository.findExistingReceipts(batch), "UK_COMMENT_RECEIPT", batch.toArray());
+    }
+
+    /**
+     * Runs the call, which must issue exactly one statement, and checks the
+     * plan of that statement for the given parameters.
+     */
+    private void assertPlan(Runnable call, String index, Object... parameters) {
+        Recorder.statements.clear();
+        call.run();
+        assertEquals(1, Recorder.statements.size(), () -> "Expected one statement: " + Recorder.statements);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + Recorder.statements.get(0), String.class, parameters);
+        assertFalse(plan.contains("tableScan"), () -> "Full scan: " + plan);
+        assertTrue(plan.contains(index), () -> "Expected " + index + ": " + plan);
+    }
+}
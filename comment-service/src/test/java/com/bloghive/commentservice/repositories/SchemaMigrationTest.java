@@ -0,0 +1,46 @@
+package com.bloghive.commentservice.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations over a database created by Hibernate auto-DDL before
+ * Flyway, with the same baseline settings as application.yml.
+ */
+class SchemaMigrationTest {
+
+    @Test
+    void autoDdlCommentTableGetsThreadingColumnsAndIndexes() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:comment-legacy;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // The comment table as auto-DDL made it before this series: flat, with no indexes
+        jdbcTemplate.execute("CREATE TABLE comment (id BIGINT NOT NULL AUTO_INCREMENT, post_id BIGINT, "
+                + "user_id BIGINT, content VARCHAR(255), created_at DATETIME(6), PRIMARY KEY (id))");
+        jdbcTemplate.update("INSERT INTO comment (post_id, user_id, content) VALUES (1, 2, ?)", "Legacy comment");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT parent_id, path, depth, reply_count, receipt "
+                + "FROM comment");
+        assertNull(row.get("PARENT_ID"));
+        assertEquals(0, row.get("DEPTH"));
+        assertEquals(0, row.get("REPLY_COUNT"));
+        assertEquals(List.of("IDX_COMMENT_POST_PATH", "UK_COMMENT_RECEIPT"), jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'COMMENT' "
+                        + "AND INDEX_NAME IN ('IDX_COMMENT_POST_PATH', 'UK_COMMENT_RECEIPT') ORDER BY INDEX_NAME",
+                String.class));
+    }
+}
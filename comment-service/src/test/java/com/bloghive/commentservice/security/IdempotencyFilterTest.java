@@ -0,0 +1,90 @@
+package com.bloghive.commentservice.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:comment-idempotency;MODE=MySQL",
+        "comments.ingestion.mode=async",
+        "comments.stats.enabled=false"})
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    @DynamicPropertySource
+    static void logDir(DynamicPropertyRegistry registry) throws Exception {
+        String dir = Files.createTempDirectory("comment-log").toString();
+        registry.add("comments.ingestion.log-dir", () -> dir);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    void retryGetsTheSameReceipt() throws Exception {
+        MockHttpServletResponse first = createComment(71L, "retry-key", "Hello");
+        MockHttpServletResponse retry = createComment(71L, "retry-key", "Hello");
+
+        assertEquals(202, first.getStatus());
+        assertEquals(202, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        // The receipt is only in the Location header, so a replay without it would lose the comment
+        assertNotNull(first.getHeader(HttpHeaders.LOCATION));
+        assertEquals(first.getHeader(HttpHeaders.LOCATION), retry.getHeader(HttpHeaders.LOCATION));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+    }
+
+    @Test
+    void keyReusedForADifferentBodyIsRejected() throws Exception {
+        createComment(71L, "reused-key", "One");
+
+        assertEquals(422, createComment(71L, "reused-key", "Two").getStatus());
+    }
+
+    @Test
+    void keysAreScopedToTheCaller() throws Exception {
+        MockHttpServletResponse first = createComment(71L, "shared-key", "Same");
+        MockHttpServletResponse other = createComment(72L, "shared-key", "Same");
+
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNotEquals(first.getHeader(HttpHeaders.LOCATION), other.getHeader(HttpHeaders.LOCATION));
+    }
+
+    private MockHttpServletResponse createComment(Long userId, String key, String content) throws Exception {
+        return mockMvc.perform(post("/comments")
+                        .header("Authorization", bearer(userId))
+                        .header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"postId\":41,\"content\":\"" + content + "\"}"))
+                .andReturn().getResponse();
+    }
+
+    private String bearer(Long userId) {
+        return "Bearer " + Jwts.builder()
+                .setSubject("user" + userId)
+                .claim("userId", userId)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
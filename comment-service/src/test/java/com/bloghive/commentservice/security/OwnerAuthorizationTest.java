@@ -0,0 +1,92 @@
+package com.bloghive.commentservice.security;
+
+import com.bloghive.commentservice.repositories.CommentRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:comment-owners;MODE=MySQL",
+        "comments.stats.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bloghive.commentservice.security.OwnerAuthorizationTest$Recorder"})
+@AutoConfigureMockMvc
+class OwnerAuthorizationTest {
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    void onlyTheAuthorMayDeleteAComment() throws Exception {
+        Long id = createComment(51L);
+        assertEquals(51L, commentRepository.findById(id).orElseThrow().getUserId());
+
+        Recorder.statements.clear();
+        mockMvc.perform(delete("/comments/" + id).header("Authorization", bearer(52L)))
+                .andExpect(status().isForbidden());
+        // The owner was cached when the comment was stored
+        assertEquals(List.of(), Recorder.statements);
+        assertTrue(commentRepository.existsById(id));
+
+        mockMvc.perform(delete("/comments/" + id).header("Authorization", bearer(51L)))
+                .andExpect(status().isOk());
+        assertFalse(commentRepository.existsById(id));
+    }
+
+    @Test
+    void missingCommentsAreDenied() throws Exception {
+        mockMvc.perform(delete("/comments/999999").header("Authorization", bearer(51L)))
+                .andExpect(status().isForbidden());
+    }
+
+    private Long createComment(Long userId) throws Exception {
+        String json = mockMvc.perform(post("/comments").header("Authorization", bearer(userId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"postId\":31,\"content\":\"Mine\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.valueOf(json.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    private String bearer(Long userId) {
+        return "Bearer " + Jwts.builder()
+                .setSubject("user" + userId)
+                .claim("userId", userId)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
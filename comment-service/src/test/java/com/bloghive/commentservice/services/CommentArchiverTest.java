@@ -0,0 +1,69 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.Comment;
+import com.bloghive.commentservice.models.CommentsStamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:comments-archive;MODE=MySQL",
+        "comments.stats.enabled=false",
+        "comments.archive.max-age=30d",
+        "comments.archive.batch-size=1",
+        "comments.archive.batch-pause=0ms"})
+class CommentArchiverTest {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentArchiver commentArchiver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void quietThreadsMoveToTheArchiveAndBackOnReply() {
+        Comment root = commentService.save(comment(301L, null, "root"));
+        Comment reply = commentService.save(comment(null, root.getId(), "reply"));
+        Comment active = commentService.save(comment(302L, null, "active"));
+        jdbcTemplate.update("UPDATE comment SET created_at = ? WHERE post_id = 301",
+                LocalDateTime.now().minusDays(60));
+        CommentsStamp before = commentService.getStampByPostId(301L);
+
+        commentArchiver.archiveQuietThreads();
+
+        assertEquals(List.of(active.getId()), jdbcTemplate.queryForList("SELECT id FROM comment", Long.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comment_archive", Long.class));
+        // Reads see both tables as one
+        assertEquals(List.of(root.getId(), reply.getId()),
+                commentService.findByPostId(301L).stream().map(Comment::getId).toList());
+        assertEquals(List.of(root.getId()),
+                commentService.findThreadPage(301L, "", 1, 10).stream().map(Comment::getId).toList());
+        CommentsStamp after = commentService.getStampByPostId(301L);
+        assertEquals(before.getCount(), after.getCount());
+        assertEquals(before.getLastId(), after.getLastId());
+
+        Comment second = commentService.save(comment(null, root.getId(), "late reply"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comment_archive", Long.class));
+        assertEquals(2, commentService.findById(root.getId()).orElseThrow().getReplyCount());
+        assertEquals(List.of(root.getId(), reply.getId(), second.getId()),
+                commentService.findByPostId(301L).stream().map(Comment::getId).toList());
+    }
+
+    private static Comment comment(Long postId, Long parentId, String content) {
+        Comment comment = new Comment();
+        comment.setPostId(postId);
+        comment.setParentId(parentId);
+        comment.setUserId(7L);
+        comment.setContent(content);
+        return comment;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.Comment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"comments.ingestion.mode=async", "comments.stats.enabled=false"})
+class CommentIngestionServiceTest {
+
+    @DynamicPropertySource
+    static void logDir(DynamicPropertyRegistry registry) throws Exception {
+        Path dir = Files.createTempDirectory("comment-log");
+        registry.add("comments.ingestion.log-dir", dir::toString);
+    }
+
+    @Autowired
+    private CommentIngestionService ingestionService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void submittedCommentsAreStoredWithThreadPaths() throws Exception {
+        Comment root = commentService.save(comment(101L, null, "root"));
+
+        List<String> receipts = new ArrayList<>();
+        receipts.add(ingestionService.submit(comment(101L, null, "first")));
+        receipts.add(ingestionService.submit(comment(null, root.getId(), "reply")));
+        receipts.add(ingestionService.submit(comment(101L, null, "second")));
+        awaitStored(receipts);
+
+        Comment reply = commentService.findByReceipt(receipts.get(1)).orElseThrow();
+        assertEquals(101L, reply.getPostId());
+        assertEquals(1, reply.getDepth());
+        assertEquals(root.getPath() + String.format("%010d/", reply.getId()), reply.getPath());
+        assertEquals(1, commentService.findById(root.getId()).orElseThrow().getReplyCount());
+        assertEquals(4, commentService.findByPostId(101L).size());
+    }
+
+    @Test
+    void replaySkipsCommentsThatWereAlreadyStored() throws Exception {
+        String stored = ingestionService.submit(comment(202L, null, "stored before the crash"));
+        awaitStored(List.of(stored));
+
+        Path segment = Files.createTempDirectory("comment-replay").resolve("000000000000.log");
+        String lost = UUID.randomUUID().toString();
+        Files.writeString(segment,
+                entry(stored, "stored before the crash") + "\n" + entry(lost, "lost in the crash") + "\n"
+                        + "{\"receipt\":\"torn");
+
+        ingestionService.replay(List.of(segment));
+
+        assertTrue(commentService.findByReceipt(lost).isPresent());
+        assertEquals(2, commentService.findByPostId(202L).size());
+        assertFalse(Files.exists(segment));
+    }
+
+    @Test
+    void commentsThatCannotBeStoredGetNoReceipt() throws Exception {
+        assertThrows(IllegalArgumentException.class,
+                () -> ingestionService.submit(comment(203L, null, "x".repeat(Comment.MAX_CONTENT_LENGTH + 1))));
+        assertThrows(IllegalArgumentException.class, () -> ingestionService.submit(comment(203L, null, " ")));
+        assertThrows(IllegalArgumentException.class, () -> ingestionService.submit(comment(null, null, "orphan")));
+        assertThrows(IllegalArgumentException.class, () -> ingestionService.submit(comment(null, 999_999L, "reply")));
+
+        String longest = "x".repeat(Comment.MAX_CONTENT_LENGTH);
+        awaitStored(List.of(ingestionService.submit(comment(203L, null, longest))));
+        assertEquals(longest, commentService.findByPostId(203L).get(0).getContent());
+    }
+
+    private void awaitStored(List<String> receipts) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (receipts.stream().anyMatch(ingestionService::isPending)) {
+            assertTrue(System.currentTimeMillis() < deadline, "comments were not stored in time");
+            Thread.sleep(20);
+        }
+        receipts.forEach(r -> assertTrue(commentService.findByReceipt(r).isPresent()));
+    }
+
+    private String entry(String receipt, String content) throws Exception {
+        return objectMapper.writeValueAsString(new CommentIngestionService.Entry(
+                receipt, 202L, 1L, content, null, LocalDateTime.now()));
+    }
+
+    private static Comment comment(Long postId, Long parentId, String content) {
+        Comment comment = new Comment();
+        comment.setPostId(postId);
+        comment.setParentId(parentId);
+        comment.setUserId(1L);
+        comment.setContent(content);
+        return comment;
+    }
+}
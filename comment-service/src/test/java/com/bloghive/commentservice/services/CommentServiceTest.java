@@ -0,0 +1,107 @@
+package com.bloghive.commentservice.services;
+
+import com.bloghive.commentservice.models.Comment;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:comments-threading;MODE=MySQL",
+        "comments.stats.enabled=false"})
+class CommentServiceTest {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Test
+    void repliesStoreTheirPathAndCountOnTheParent() {
+        Comment root = commentService.save(comment(401L, null, "root"));
+        Comment reply = commentService.save(comment(null, root.getId(), "reply"));
+        Comment nested = commentService.save(comment(null, reply.getId(), "nested"));
+        Comment other = commentService.save(comment(401L, null, "other root"));
+
+        assertEquals(String.format("%010d/", root.getId()), root.getPath());
+        assertEquals(root.getPath() + String.format("%010d/", reply.getId()), reply.getPath());
+        assertEquals(reply.getPath() + String.format("%010d/", nested.getId()), nested.getPath());
+        assertEquals(401L, nested.getPostId());
+        assertEquals(2, nested.getDepth());
+        assertEquals(1, reload(root).getReplyCount());
+        assertEquals(1, reload(reply).getReplyCount());
+        assertEquals(0, reload(nested).getReplyCount());
+        assertEquals(ids(root, reply, nested, other), ids(commentService.findByPostId(401L)));
+    }
+
+    @Test
+    void threadPagesAreBoundedInDepthAndResumeAfterTheLastPath() {
+        Comment a = commentService.save(comment(402L, null, "a"));
+        Comment a1 = commentService.save(comment(null, a.getId(), "a1"));
+        Comment a1x = commentService.save(comment(null, a1.getId(), "a1x"));
+        Comment a2 = commentService.save(comment(null, a.getId(), "a2"));
+        Comment b = commentService.save(comment(402L, null, "b"));
+
+        assertEquals(ids(a, b), ids(commentService.findThreadPage(402L, "", 1, 10)));
+        List<Comment> first = commentService.findThreadPage(402L, "", 2, 2);
+        assertEquals(ids(a, a1), ids(first));
+        String after = first.get(first.size() - 1).getPath();
+        assertEquals(ids(a2, b), ids(commentService.findThreadPage(402L, after, 2, 10)));
+
+        assertEquals(ids(a1, a2), ids(commentService.findReplyPage(a, "", 1, 10)));
+        assertEquals(ids(a1, a1x, a2), ids(commentService.findReplyPage(a, "", 2, 10)));
+        assertEquals(ids(a2), ids(commentService.findReplyPage(a, a1x.getPath(), 2, 10)));
+    }
+
+    @Test
+    void repliesBelowTheMaximumDepthGoToTheGrandparent() {
+        Comment parent = commentService.save(comment(403L, null, "depth 0"));
+        for (int depth = 1; depth < Comment.MAX_DEPTH; depth++) {
+            parent = commentService.save(comment(null, parent.getId(), "depth " + depth));
+        }
+        assertEquals(Comment.MAX_DEPTH - 1, parent.getDepth());
+
+        Comment tooDeep = commentService.save(comment(null, parent.getId(), "too deep"));
+
+        assertEquals(parent.getParentId(), tooDeep.getParentId());
+        assertEquals(Comment.MAX_DEPTH - 1, tooDeep.getDepth());
+        assertEquals(2, commentService.findById(parent.getParentId()).orElseThrow().getReplyCount());
+    }
+
+    @Test
+    void deletingACommentRemovesItsSubtree() {
+        Comment root = commentService.save(comment(404L, null, "root"));
+        Comment doomed = commentService.save(comment(null, root.getId(), "doomed"));
+        commentService.save(comment(null, doomed.getId(), "below doomed"));
+        Comment kept = commentService.save(comment(null, root.getId(), "kept"));
+        assertEquals(2, reload(root).getReplyCount());
+
+        commentService.deleteById(doomed.getId());
+
+        assertEquals(ids(root, kept), ids(commentService.findByPostId(404L)));
+        assertEquals(1, reload(root).getReplyCount());
+        assertEquals(2, commentService.getStampByPostId(404L).getCount());
+    }
+
+    private Comment reload(Comment comment) {
+        return commentService.findById(comment.getId()).orElseThrow();
+    }
+
+    private static List<Long> ids(Comment... comments) {
+        return ids(List.of(comments));
+    }
+
+    private static List<Long> ids(List<Comment> comments) {
+        return comments.stream().map(Comment::getId).toList();
+    }
+
+    private static Comment comment(Long postId, Long parentId, String content) {
+        Comment comment = new Comment();
+        comment.setPostId(postId);
+        comment.setParentId(parentId);
+        comment.setUserId(7L);
+        comment.setContent(content);
+        return comment;
+    }
+}
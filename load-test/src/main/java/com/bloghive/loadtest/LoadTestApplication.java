@@ -0,0 +1,171 @@
+package com.bloghive.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End-to-end load test of api-gateway, auth-service, post-service and comment-service.
+ *
+ * Each service runs from its packaged jar in a separate JVM, because the
+ * modules cannot share one classpath (each has its own application.yml, and
+ * the gateway is reactive while the others are servlet apps). Config server
+ * and Eureka are switched off as in the services' test configuration, each
+ * backend gets its own in-memory H2 database, and the gateway finds the
+ * backends through Spring Cloud's simple discovery client instead of Eureka.
+ *
+ * Package the four services first, then from this directory:
+ *
+ *   mvn compile exec:java -Dloadtest.duration=60 -Dloadtest.workers=32
+ *
+ * Options (system properties): loadtest.services-dir (default ".."),
+ * loadtest.users (20), loadtest.posts (200), loadtest.comments-per-post (5),
+ * loadtest.workers (32), loadtest.warmup (15 seconds), loadtest.duration
+ * (60 seconds) and loadtest.jvm-args (extra flags for every service JVM).
+ * Service logs are written to target/logs.
+ *
+ * To compare comment-service's servlet and reactive variants, run the same
+ * load twice, once with -Dloadtest.comment-profile=reactive, and raise
+ * loadtest.workers between runs. loadtest.db-connections (10) is the
+ * connection budget for comment requests in both variants: the JDBC pool
+ * size for the servlet variant and the R2DBC pool size for the reactive one.
+ * loadtest.mix=comments (default "full") limits the load to comment
+ * endpoints.
+ *
+ * Tracing is off by default so it does not skew the numbers. To see where a
+ * request's time goes, run a collector (see otel-collector.yml) and set
+ * loadtest.trace-sampling (fraction of requests traced at the gateway, 0) and
+ * loadtest.otlp-endpoint (default http://localhost:4318/v1/traces).
+ */
+public class LoadTestApplication {
+
+    private static final String JWT_SECRET = "load-test-secret-key-that-is-long-enough-for-hs256";
+
+    public static void main(String[] args) throws Exception {
+        Path servicesDir = Path.of(System.getProperty("loadtest.services-dir", "..")).toAbsolutePath().normalize();
+        Path logDir = Path.of("target", "logs");
+        int users = Integer.getInteger("loadtest.users", 20);
+        int posts = Integer.getInteger("loadtest.posts", 200);
+        int commentsPerPost = Integer.getInteger("loadtest.comments-per-post", 5);
+        int workers = Integer.getInteger("loadtest.workers", 32);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 15));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 60));
+        List<String> jvmArgs = splitArgs(System.getProperty("loadtest.jvm-args", ""));
+        String commentProfile = System.getProperty("loadtest.comment-profile", "");
+        int dbConnections = Integer.getInteger("loadtest.db-connections", 10);
+        String mix = System.getProperty("loadtest.mix", "full");
+        String traceSampling = System.getProperty("loadtest.trace-sampling", "0");
+        String otlpEndpoint = System.getProperty("loadtest.otlp-endpoint", "http://localhost:4318/v1/traces");
+        List<String> common = commonArgs(traceSampling, otlpEndpoint);
+
+        // The H2 drivers from our own classpath are lent to every service JVM
+        List<Path> drivers = List.of(jarOf(org.h2.Driver.class), jarOf(io.r2dbc.h2.H2ConnectionFactory.class));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        List<ServiceProcess> running = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> running.forEach(ServiceProcess::close)));
+        try {
+            List<ServiceProcess> backends = new ArrayList<>();
+            for (String name : List.of("auth-service", "post-service", "comment-service")) {
+                ServiceProcess service = ServiceProcess.start(name, ServiceProcess.findJar(servicesDir, name), drivers,
+                        freePort(), jvmArgs, backendArgs(common, name, commentProfile, dbConnections), logDir);
+                running.add(service);
+                backends.add(service);
+            }
+            for (ServiceProcess service : backends) {
+                service.awaitReady(client, Duration.ofMinutes(3));
+                System.out.println(service.name() + " ready at " + service.baseUrl());
+            }
+
+            List<String> gatewayArgs = new ArrayList<>(common);
+            for (ServiceProcess backend : backends) {
+                gatewayArgs.add("--spring.cloud.discovery.client.simple.instances." + backend.name() + "[0].uri="
+                        + backend.baseUrl());
+            }
+            ServiceProcess gateway = ServiceProcess.start("api-gateway", ServiceProcess.findJar(servicesDir, "api-gateway"),
+                    drivers, freePort(), jvmArgs, gatewayArgs, logDir);
+            running.add(gateway);
+            gateway.awaitReady(client, Duration.ofMinutes(3));
+            System.out.println("api-gateway ready at " + gateway.baseUrl());
+
+            Workload workload = new Workload(client, gateway.baseUrl(), "comments".equals(mix));
+            System.out.printf("Seeding %d users, %d posts, %d comments per post%n", users, posts, commentsPerPost);
+            workload.seed(users, posts, commentsPerPost);
+
+            RouteStats stats = new RouteStats();
+            System.out.printf("Warming up for %ds with %d workers%n", warmup.toSeconds(), workers);
+            workload.run(workers, warmup, stats);
+            stats.reset();
+
+            System.out.printf("Measuring for %ds with %d workers, comment-service %s with %d connections%n",
+                    duration.toSeconds(), workers, commentProfile.isEmpty() ? "servlet" : commentProfile, dbConnections);
+            long start = System.nanoTime();
+            workload.run(workers, duration, stats);
+            System.out.println();
+            stats.print(System.out, System.nanoTime() - start);
+        } finally {
+            running.forEach(ServiceProcess::close);
+            running.clear();
+        }
+    }
+
+    private static List<String> commonArgs(String traceSampling, String otlpEndpoint) {
+        return List.of(
+                "--spring.cloud.config.enabled=false",
+                "--spring.cloud.config.import-check.enabled=false",
+                "--eureka.client.enabled=false",
+                "--spring.cloud.bus.enabled=false",
+                // Backends follow the gateway's decision, so this only matters there
+                "--management.tracing.sampling.probability=" + traceSampling,
+                "--management.otlp.tracing.endpoint=" + otlpEndpoint);
+    }
+
+    private static List<String> backendArgs(List<String> common, String name, String commentProfile,
+            int dbConnections) {
+        List<String> args = new ArrayList<>(common);
+        args.add("--spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        args.add("--jwt.secret=" + JWT_SECRET);
+        args.add("--jwt.expiration=86400000");
+        if (name.equals("comment-service")) {
+            if (commentProfile.equals("reactive")) {
+                args.add("--spring.profiles.active=reactive");
+                // Same in-memory database as the JDBC url, which Flyway migrates
+                args.add("--spring.r2dbc.url=r2dbc:h2:mem:///" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+                args.add("--spring.r2dbc.username=sa");
+                args.add("--spring.r2dbc.pool.initial-size=" + dbConnections);
+                args.add("--spring.r2dbc.pool.max-size=" + dbConnections);
+            } else {
+                args.add("--spring.datasource.hikari.maximum-pool-size=" + dbConnections);
+            }
+        }
+        return args;
+    }
+
+    private static Path jarOf(Class<?> type) throws Exception {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static List<String> splitArgs(String value) {
+        List<String> args = new ArrayList<>();
+        for (String arg : value.trim().split("\\s+")) {
+            if (!arg.isEmpty()) {
+                args.add(arg);
+            }
+        }
+        return args;
+    }
+}
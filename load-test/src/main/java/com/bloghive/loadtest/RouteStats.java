@@ -0,0 +1,54 @@
+package com.bloghive.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per route, safe to record from many threads.
+ */
+final class RouteStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String route, long latencyNanos, boolean ok) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 1), MAX_LATENCY_MICROS);
+        latencies.computeIfAbsent(route, r -> new ConcurrentHistogram(MAX_LATENCY_MICROS, 3)).recordValue(micros);
+        if (!ok) {
+            errors.computeIfAbsent(route, r -> new LongAdder()).increment();
+        }
+    }
+
+    void reset() {
+        latencies.clear();
+        errors.clear();
+    }
+
+    void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%-26s %10s %8s %10s %9s %9s %9s%n",
+                "route", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+        latencies.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    Histogram h = entry.getValue();
+                    LongAdder failed = errors.get(entry.getKey());
+                    out.printf("%-26s %10d %8d %10.1f %9.2f %9.2f %9.2f%n",
+                            entry.getKey(),
+                            h.getTotalCount(),
+                            failed != null ? failed.sum() : 0,
+                            h.getTotalCount() / seconds,
+                            h.getValueAtPercentile(50) / 1000.0,
+                            h.getValueAtPercentile(99) / 1000.0,
+                            h.getValueAtPercentile(99.9) / 1000.0);
+                });
+    }
+}
@@ -0,0 +1,119 @@
+package com.bloghive.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * One service running in its own JVM from its packaged Boot jar.
+ *
+ * The jar is started through Boot's PropertiesLauncher so the embedded
+ * database drivers can be put on its classpath with loader.path without
+ * repackaging the service.
+ */
+final class ServiceProcess implements AutoCloseable {
+
+    private final String name;
+    private final int port;
+    private final Process process;
+
+    private ServiceProcess(String name, int port, Process process) {
+        this.name = name;
+        this.port = port;
+        this.process = process;
+    }
+
+    static ServiceProcess start(String name, Path jar, List<Path> extraClasspath, int port, List<String> jvmArgs,
+            List<String> appArgs, Path logDir) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(jar.toString());
+        command.add("-Dloader.path=" + extraClasspath.stream().map(Path::toString).collect(Collectors.joining(",")));
+        command.add("org.springframework.boot.loader.launch.PropertiesLauncher");
+        command.add("--server.port=" + port);
+        command.addAll(appArgs);
+
+        Files.createDirectories(logDir);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logDir.resolve(name + ".log").toFile())
+                .start();
+        return new ServiceProcess(name, port, process);
+    }
+
+    /**
+     * Finds the packaged jar of a service module, e.g. post-service/target/post-service-0.0.1-SNAPSHOT.jar.
+     */
+    static Path findJar(Path servicesDir, String name) throws IOException {
+        Path target = servicesDir.resolve(name).resolve("target");
+        if (Files.isDirectory(target)) {
+            try (Stream<Path> files = Files.list(target)) {
+                return files.filter(p -> p.getFileName().toString().startsWith(name + "-"))
+                        .filter(p -> p.getFileName().toString().endsWith(".jar"))
+                        .findFirst()
+                        .orElseThrow(() -> missingJar(name));
+            }
+        }
+        throw missingJar(name);
+    }
+
+    private static IllegalStateException missingJar(String name) {
+        return new IllegalStateException("No jar found for " + name + ", run 'mvn package -DskipTests' in " + name + " first");
+    }
+
+    /**
+     * Waits until the embedded web server answers. Any HTTP status counts,
+     * since actuator endpoints sit behind authentication in some services.
+     */
+    void awaitReady(HttpClient client, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited during startup, see its log");
+            }
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(250);
+            }
+        }
+        throw new IllegalStateException(name + " did not start within " + timeout.toSeconds() + "s");
+    }
+
+    String name() {
+        return name;
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(15, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
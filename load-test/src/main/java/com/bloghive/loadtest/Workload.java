@@ -0,0 +1,169 @@
+package com.bloghive.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds users, posts and comments through the gateway and then replays a
+ * read-heavy mix against it from a fixed number of closed-loop workers.
+ *
+ * The mix per iteration: 30% feed, 45% reading a post (the post and then its
+ * comments, as the frontend does), 15% commenting and 10% logging in. Posts
+ * are picked with a skew towards a few popular ones. The comments-only mix
+ * is 90% reading a post's comments and 10% commenting.
+ */
+final class Workload {
+
+    private static final String PASSWORD = "load-test-password";
+    private static final String BODY = "<p>Load test post body with <strong>some</strong> markup.</p>".repeat(40);
+
+    private final HttpClient client;
+    private final String gateway;
+    private final boolean commentsOnly;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<String> usernames = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Long> postIds = new ArrayList<>();
+
+    Workload(HttpClient client, String gateway, boolean commentsOnly) {
+        this.client = client;
+        this.gateway = gateway;
+        this.commentsOnly = commentsOnly;
+    }
+
+    void seed(int users, int posts, int commentsPerPost) throws IOException, InterruptedException {
+        for (int i = 0; i < users; i++) {
+            String username = "loaduser" + i;
+            sendOk("POST", "/auth/register", null, Map.of(
+                    "username", username,
+                    "email", username + "@example.com",
+                    "password", PASSWORD,
+                    "roles", List.of("USER")));
+            usernames.add(username);
+            tokens.add(login(username));
+        }
+        for (int i = 0; i < posts; i++) {
+            String token = tokens.get(i % tokens.size());
+            HttpResponse<String> created = sendOk("POST", "/posts", token,
+                    Map.of("title", "Load test post " + i, "content", BODY));
+            long postId = mapper.readTree(created.body()).get("id").asLong();
+            postIds.add(postId);
+            for (int c = 0; c < commentsPerPost; c++) {
+                sendOk("POST", "/comments", token, Map.of("postId", postId, "content", "Seed comment " + c));
+            }
+        }
+    }
+
+    /**
+     * Runs the mix from the given number of workers for the given time and records into stats.
+     */
+    void run(int workers, Duration duration, RouteStats stats) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; i++) {
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    iteration(stats);
+                }
+            });
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void iteration(RouteStats stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(100);
+        if (commentsOnly) {
+            if (pick < 90) {
+                timed(stats, "GET /comments/post/{id}", "GET", "/comments/post/" + popularPost(random), null, null);
+            } else {
+                String token = tokens.get(random.nextInt(tokens.size()));
+                timed(stats, "POST /comments", "POST", "/comments", token,
+                        Map.of("postId", popularPost(random), "content", "Load test comment"));
+            }
+        } else if (pick < 30) {
+            timed(stats, "GET /posts", "GET", "/posts", null, null);
+        } else if (pick < 75) {
+            long postId = popularPost(random);
+            timed(stats, "GET /posts/{id}", "GET", "/posts/" + postId, null, null);
+            timed(stats, "GET /comments/post/{id}", "GET", "/comments/post/" + postId, null, null);
+        } else if (pick < 90) {
+            String token = tokens.get(random.nextInt(tokens.size()));
+            timed(stats, "POST /comments", "POST", "/comments", token,
+                    Map.of("postId", popularPost(random), "content", "Load test comment"));
+        } else {
+            String username = usernames.get(random.nextInt(usernames.size()));
+            timed(stats, "POST /auth/login", "POST", "/auth/login", null,
+                    Map.of("username", username, "password", PASSWORD));
+        }
+    }
+
+    // Cubing a uniform value piles most picks onto the first few posts
+    private long popularPost(ThreadLocalRandom random) {
+        double u = random.nextDouble();
+        return postIds.get((int) (u * u * u * postIds.size()));
+    }
+
+    private void timed(RouteStats stats, String route, String method, String path, String token, Object body) {
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = send(method, path, token, body).statusCode() < 400;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.record(route, System.nanoTime() - start, ok);
+    }
+
+    private String login(String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = sendOk("POST", "/auth/login", null,
+                Map.of("username", username, "password", PASSWORD));
+        JsonNode json = mapper.readTree(response.body());
+        return json.get("accessToken").asText();
+    }
+
+    private HttpResponse<String> sendOk(String method, String path, String token, Object body)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = send(method, path, token, body);
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding failed: " + method + " " + path + " returned "
+                    + response.statusCode() + " " + response.body());
+        }
+        return response;
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(gateway + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
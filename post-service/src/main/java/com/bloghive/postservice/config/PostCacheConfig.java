@@ -0,0 +1,73 @@
+package com.bloghive.postservice.config;
+
+import com.bloghive.postservice.services.PostCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Subscribes to post invalidations from other instances when the shared cache is on.
+ *
+ * The subscription is made in the background after startup and retried until
+ * Redis answers, so an unavailable cache never keeps the service from starting.
+ */
+@Configuration
+@ConditionalOnProperty(name = "posts.cache.shared.enabled", havingValue = "true")
+public class PostCacheConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PostCacheConfig.class);
+    private static final long RETRY_MILLIS = 5000;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    // Not a bean: the context would start it during refresh and fail if Redis is down
+    private RedisMessageListenerContainer container;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> postCache.evictLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(PostCache.INVALIDATION_CHANNEL));
+        container.afterPropertiesSet();
+
+        Thread subscriber = new Thread(() -> {
+            while (!container.isRunning()) {
+                try {
+                    container.start();
+                } catch (RuntimeException e) {
+                    log.warn("Could not subscribe to post invalidations, retrying: {}", e.getMessage());
+                    try {
+                        Thread.sleep(RETRY_MILLIS);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }, "post-cache-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @PreDestroy
+    public void unsubscribe() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+}
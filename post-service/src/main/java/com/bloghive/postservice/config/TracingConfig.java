@@ -0,0 +1,46 @@
+package com.bloghive.postservice.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Observes every Spring Data repository call as "repository.invocation", so
+ * traces show each repository method with its JDBC statements nested below
+ * it. Time inside the repository span but outside any statement is spent in
+ * Hibernate.
+ */
+@Configuration
+public class TracingConfig {
+
+    // Static: post-processors are created before the rest of the configuration
+    @Bean
+    static BeanPostProcessor repositoryObservationPostProcessor(ObjectProvider<ObservationRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repository) -> proxyFactory.addAdvice(
+                                    observing(registry, repository.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor observing(ObjectProvider<ObservationRegistry> registry, String repository) {
+        // Span names come out as e.g. "post-repository.save"
+        return invocation -> Observation.createNotStarted("repository.invocation",
+                        registry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                .contextualName(repository + "." + invocation.getMethod().getName())
+                .lowCardinalityKeyValue("repository", repository)
+                .lowCardinalityKeyValue("method", invocation.getMethod().getName())
+                .observeChecked(invocation::proceed);
+    }
+}
@@ -0,0 +1,75 @@
+package com.bloghive.postservice.controllers;
+
+import com.bloghive.postservice.models.AuthorStats;
+import com.bloghive.postservice.models.StatsPeriod;
+import com.bloghive.postservice.services.AuthorStatsService;
+import com.bloghive.postservice.services.PostOwners;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/authors")
+public class AuthorStatsController {
+
+    // Caps on the requested range, so one request reads a bounded number of rows
+    private static final Duration MAX_HOURLY_RANGE = Duration.ofDays(7);
+    private static final Duration MAX_DAILY_RANGE = Duration.ofDays(366);
+
+    @Autowired
+    private AuthorStatsService authorStatsService;
+
+    @Autowired
+    private PostOwners postOwners;
+
+    @GetMapping("/{authorId}/stats")
+    public ResponseEntity<AuthorStats> getAuthorStats(@PathVariable Long authorId,
+            @RequestParam(defaultValue = "DAY") StatsPeriod period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        // SecurityConfig only lets authors see their own numbers
+        LocalDateTime end = to != null ? to : AuthorStatsService.now();
+        return ResponseEntity.ok(authorStatsService.getAuthorStats(authorId, period, start(period, from, end), end));
+    }
+
+    @GetMapping("/{authorId}/stats/posts/{postId}")
+    public ResponseEntity<AuthorStats> getPostStats(@PathVariable Long authorId, @PathVariable Long postId,
+            @RequestParam(defaultValue = "DAY") StatsPeriod period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (postOwners.authorOf(postId).filter(authorId::equals).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDateTime end = to != null ? to : AuthorStatsService.now();
+        return ResponseEntity.ok(
+                authorStatsService.getPostStats(authorId, postId, period, start(period, from, end), end));
+    }
+
+    /**
+     * Comment counts reported by comment-service, which signs its calls with a SERVICE token.
+     */
+    @PostMapping("/stats/comment-events")
+    public ResponseEntity<?> recordCommentEvent(@RequestBody Map<String, Long> event) {
+        Long postId = event.get("postId");
+        Long delta = event.get("delta");
+        if (postId == null || delta == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        authorStatsService.recordComments(postId, delta);
+        return ResponseEntity.accepted().build();
+    }
+
+    private static LocalDateTime start(StatsPeriod period, LocalDateTime from, LocalDateTime end) {
+        Duration maxRange = period == StatsPeriod.HOUR ? MAX_HOURLY_RANGE : MAX_DAILY_RANGE;
+        LocalDateTime earliest = end.minus(maxRange);
+        if (from == null) {
+            return period == StatsPeriod.HOUR ? end.minusHours(48) : end.minusDays(30);
+        }
+        return from.isBefore(earliest) ? earliest : from;
+    }
+}
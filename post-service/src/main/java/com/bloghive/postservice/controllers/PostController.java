@@ -1,13 +1,23 @@
 package com.bloghive.postservice.controllers;
 
+import com.bloghive.postservice.models.FeedStamp;
 import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.PostStamp;
 import com.bloghive.postservice.services.PostService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/posts")
@@ -17,19 +27,37 @@ public class PostController {
     private PostService postService;
 
     @GetMapping
-    public List<Post> getAllPosts() {
-        return postService.findAll();
+    public ResponseEntity<List<Post>> getAllPosts(WebRequest request) {
+        // Validate against a one-row aggregate before loading every post
+        FeedStamp stamp = postService.getFeedStamp();
+        String etag = "feed-" + stamp.getCount() + "-" + stamp.getLastId() + "-" + toMillis(stamp.getLastUpdated());
+        // ETag only: a delete changes the count but not MAX(updated_at), so Last-Modified would go stale
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(postService.findAll());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Post> getPostById(@PathVariable Long id) {
-        return postService.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Post> getPostById(@PathVariable Long id, WebRequest request) {
+        // Validate first, so a revalidation neither loads the body nor counts as a view
+        Optional<PostStamp> stamp = postService.findReadStampById(id);
+        if (stamp.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(etag(id, stamp.get().getVersion()), toMillis(stamp.get().getUpdatedAt()))) {
+            return null;
+        }
+        Optional<Post> post = postService.findById(id);
+        if (post.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        postService.recordView(id);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(post.get());
     }
 
     @PostMapping
-    public Post createPost(@RequestBody Post post, Authentication authentication) {
+    public ResponseEntity<Post> createPost(@RequestBody Post post, Authentication authentication) {
         // Extract user ID from JWT token - the principal now contains the userId
         if (authentication != null && authentication.getPrincipal() != null) {
             try {
@@ -41,20 +69,53 @@ public class PostController {
         } else {
             throw new RuntimeException("Authentication required to create post");
         }
-        return postService.save(post);
+        Post saved = postService.save(post);
+        // The version a following PUT or PATCH sends back in If-Match
+        return ResponseEntity.ok().eTag(etag(saved.getId(), saved.getVersion())).body(saved);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Post> updatePost(@PathVariable Long id, @RequestBody Post postDetails) {
-        return postService.findById(id)
+    public ResponseEntity<Post> updatePost(@PathVariable Long id, @RequestBody Post postDetails,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch, id);
+        return postService.findByIdForUpdate(id)
                 .map(post -> {
+                    if (expectedVersion != null && expectedVersion != post.getVersion()) {
+                        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Post>build();
+                    }
                     post.setTitle(postDetails.getTitle());
                     post.setContent(postDetails.getContent());
-                    return ResponseEntity.ok(postService.save(post));
+                    try {
+                        Post saved = postService.save(post);
+                        return ResponseEntity.ok().eTag(etag(id, saved.getVersion())).body(saved);
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        // Someone else saved between our read and our write
+                        return ResponseEntity.status(expectedVersion != null
+                                ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).<Post>build();
+                    }
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchPost(@PathVariable Long id, @RequestBody Post postDetails,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // One UPDATE touching only the fields that were sent, no read beforehand
+        Long expectedVersion = expectedVersion(ifMatch, id);
+        int updated = postService.updateChangedFields(id, expectedVersion,
+                postDetails.getTitle(), postDetails.getContent());
+        if (updated == 0) {
+            if (expectedVersion != null && postService.findStampById(id).isPresent()) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            return ResponseEntity.notFound().build();
+        }
+        if (expectedVersion != null) {
+            return ResponseEntity.noContent().eTag(etag(id, expectedVersion + 1)).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deletePost(@PathVariable Long id) {
         postService.deleteById(id);
@@ -62,25 +123,38 @@ public class PostController {
     }
 
     @GetMapping("/author/{authorId}")
-    public ResponseEntity<List<Post>> getPostsByAuthor(@PathVariable Long authorId, Authentication authentication) {
-        // Get the authenticated user's ID from the token
-        if (authentication == null || authentication.getPrincipal() == null) {
-            return ResponseEntity.status(401).build(); // Unauthorized
-        }
+    public ResponseEntity<List<Post>> getPostsByAuthor(@PathVariable Long authorId) {
+        // SecurityConfig only lets authors list their own posts
+        return ResponseEntity.ok(postService.findByAuthorId(authorId));
+    }
 
-        Long authenticatedUserId;
+    private static String etag(Long id, long version) {
+        return "\"post-" + id + "-" + version + "\"";
+    }
+
+    // Returns the version an If-Match header asks for, null when any version will do
+    // and -1 when it names something that can never match this post
+    private static Long expectedVersion(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        String prefix = "post-" + id + "-";
+        if (!tag.startsWith(prefix)) {
+            return -1L;
+        }
         try {
-            authenticatedUserId = Long.parseLong(authentication.getPrincipal().toString());
+            return Long.parseLong(tag.substring(prefix.length()));
         } catch (NumberFormatException e) {
-            return ResponseEntity.status(401).build(); // Invalid principal
-        }
-
-        // Ensure the authenticated user is requesting their own posts
-        if (!authenticatedUserId.equals(authorId)) {
-            return ResponseEntity.status(403).build(); // Forbidden
+            return -1L;
         }
+    }
 
-        List<Post> posts = postService.findByAuthorId(authorId);
-        return ResponseEntity.ok(posts);
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
     }
 }
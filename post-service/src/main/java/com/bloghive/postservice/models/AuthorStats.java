@@ -0,0 +1,36 @@
+package com.bloghive.postservice.models;
+
+import java.util.List;
+
+/**
+ * What the author dashboard shows: all-time totals plus a series of buckets.
+ */
+public class AuthorStats {
+    private Long authorId;
+    private StatsPeriod period;
+    private StatsBucket totals;
+    private List<StatsBucket> buckets;
+
+    public AuthorStats(Long authorId, StatsPeriod period, StatsBucket totals, List<StatsBucket> buckets) {
+        this.authorId = authorId;
+        this.period = period;
+        this.totals = totals;
+        this.buckets = buckets;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public StatsPeriod getPeriod() {
+        return period;
+    }
+
+    public StatsBucket getTotals() {
+        return totals;
+    }
+
+    public List<StatsBucket> getBuckets() {
+        return buckets;
+    }
+}
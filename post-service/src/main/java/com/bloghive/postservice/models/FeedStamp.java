@@ -0,0 +1,15 @@
+package com.bloghive.postservice.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Summary of the whole posts table used as the validator for the feed.
+ * Any create, edit or delete changes at least one of these values.
+ */
+public interface FeedStamp {
+    Long getCount();
+
+    Long getLastId();
+
+    LocalDateTime getLastUpdated();
+}
@@ -1,23 +1,36 @@
 package com.bloghive.postservice.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "posts")
+@DynamicUpdate
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String title;
+
+    // Compressed on write; see PostContentConverter for the stored format
+    @Convert(converter = PostContentConverter.class)
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
     private String content;
+
     private Long authorId;
 
     @Column(updatable = false)
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Bumped on every write; an edit based on an older version is rejected
+    @Version
+    private long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -76,4 +89,12 @@ public class Post {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
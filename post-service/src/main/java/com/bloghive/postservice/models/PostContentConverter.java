@@ -0,0 +1,134 @@
+package com.bloghive.postservice.models;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores post bodies as compressed bytes.
+ *
+ * The first byte of the stored value tells how the rest is encoded:
+ * {@link #RAW} for short bodies that are not worth compressing and
+ * {@link #DEFLATE} for bodies compressed with the preset dictionary below.
+ * Rows written before compression was introduced have no header at all and
+ * are read back as plain UTF-8, so old and new rows can live side by side
+ * until {@code PostContentMigrationService} has rewritten them.
+ */
+@Converter
+public class PostContentConverter implements AttributeConverter<String, byte[]> {
+
+    static final byte RAW = 0x00;
+    static final byte DEFLATE = 0x01;
+
+    // Bodies below this size are stored as-is; deflate framing would eat the gain
+    static final int MIN_COMPRESS_BYTES = 256;
+
+    // Markup emitted by the TipTap StarterKit editor on the frontend. Deflate
+    // looks for matches at the end of the dictionary first, so the most
+    // frequent fragments go last. Changing this invalidates every DEFLATE row,
+    // so add a new header value instead of editing it.
+    private static final byte[] DICTIONARY = String.join("",
+            "<h1>", "</h1>", "<h3>", "</h3>", "<hr>", "<s>", "</s>", "<br>",
+            "<pre><code>", "</code></pre>", "<code>", "</code>",
+            "<ol><li><p>", "</p></li></ol>", "<ul><li><p>", "</p></li></ul>",
+            "<blockquote><p>", "</p></blockquote>",
+            "<em>", "</em>", "<strong>", "</strong>",
+            "<h2>", "</h2>", "<li><p>", "</p></li>",
+            " the ", " and ", " to ", " of ", " in ", " is ", " that ", " for ",
+            "</p><p>", "<p>", "</p>").getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] plain = content.getBytes(StandardCharsets.UTF_8);
+        if (plain.length >= MIN_COMPRESS_BYTES) {
+            byte[] compressed = deflate(plain);
+            if (compressed.length < plain.length) {
+                return withHeader(DEFLATE, compressed);
+            }
+        }
+        return withHeader(RAW, plain);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length == 0) {
+            return "";
+        }
+        switch (stored[0]) {
+            case RAW:
+                return new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE:
+                return new String(inflate(stored), StandardCharsets.UTF_8);
+            default:
+                // Legacy row written before compression, plain UTF-8 text
+                return new String(stored, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Returns true if the stored value already carries one of our headers.
+     * Plain text never starts with these control bytes.
+     */
+    public static boolean isEncoded(byte[] stored) {
+        return stored != null && stored.length > 0 && (stored[0] == RAW || stored[0] == DEFLATE);
+    }
+
+    private static byte[] withHeader(byte header, byte[] body) {
+        byte[] out = new byte[body.length + 1];
+        out[0] = header;
+        System.arraycopy(body, 0, out, 1, body.length);
+        return out;
+    }
+
+    private static byte[] deflate(byte[] plain) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(plain);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(Arrays.copyOfRange(stored, 1, stored.length));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed post content");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed post content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.bloghive.postservice.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Just enough of a post to answer a conditional GET without loading its body.
+ */
+public interface PostStamp {
+    Long getId();
+
+    LocalDateTime getUpdatedAt();
+
+    long getVersion();
+}
@@ -0,0 +1,140 @@
+package com.bloghive.postservice.models;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Counters for one author or one post over one hour, one day or all time.
+ *
+ * Rows are only ever incremented in place (see AuthorStatsService), so
+ * reading a dashboard costs one row per bucket no matter how many posts or
+ * comments are behind it. Times are UTC.
+ */
+@Entity
+@Table(name = "stats_bucket", indexes = @Index(name = "idx_stats_period_start", columnList = "period, bucketStart"))
+@IdClass(StatsBucket.Key.class)
+public class StatsBucket {
+
+    public enum Subject {
+        AUTHOR,
+        POST
+    }
+
+    // Plain VARCHAR rather than Hibernate's native MySQL ENUM, so adding a value needs no migration
+    @Id
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 8)
+    private Subject subject;
+
+    @Id
+    private Long subjectId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 8)
+    private StatsPeriod period;
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    private long postsPublished;
+    private long commentsReceived;
+    private long views;
+
+    public Subject getSubject() {
+        return subject;
+    }
+
+    public void setSubject(Subject subject) {
+        this.subject = subject;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public void setSubjectId(Long subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    public StatsPeriod getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(StatsPeriod period) {
+        this.period = period;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getPostsPublished() {
+        return postsPublished;
+    }
+
+    public void setPostsPublished(long postsPublished) {
+        this.postsPublished = postsPublished;
+    }
+
+    public long getCommentsReceived() {
+        return commentsReceived;
+    }
+
+    public void setCommentsReceived(long commentsReceived) {
+        this.commentsReceived = commentsReceived;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+
+    public static class Key implements Serializable {
+        private Subject subject;
+        private Long subjectId;
+        private StatsPeriod period;
+        private LocalDateTime bucketStart;
+
+        public Key() {
+        }
+
+        public Key(Subject subject, Long subjectId, StatsPeriod period, LocalDateTime bucketStart) {
+            this.subject = subject;
+            this.subjectId = subjectId;
+            this.period = period;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return subject == key.subject && Objects.equals(subjectId, key.subjectId)
+                    && period == key.period && Objects.equals(bucketStart, key.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subject, subjectId, period, bucketStart);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bloghive.postservice.models;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Width of a stats bucket. ALL is a single bucket holding the running totals.
+ */
+public enum StatsPeriod {
+    HOUR,
+    DAY,
+    ALL;
+
+    public static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case ALL -> ALL_TIME;
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.bloghive.postservice.repositories;
+
+import com.bloghive.postservice.models.FeedStamp;
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.PostContentConverter;
+import com.bloghive.postservice.models.PostStamp;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads of the posts_archive table, and the moves between it and posts.
+ *
+ * Plain SQL rather than a second entity, so the stored content is copied
+ * byte for byte and an archived post is never managed as a Post by JPA.
+ * Each move is one short transaction that locks only the rows it moves.
+ */
+@Repository
+public class PostArchiveRepository {
+
+    private static final String COLUMNS = "id, title, content, author_id, created_at, updated_at, version";
+    private static final PostContentConverter CONTENT = new PostContentConverter();
+
+    private record Stamp(Long getCount, Long getLastId, LocalDateTime getLastUpdated) implements FeedStamp {
+    }
+
+    private record ArchivedPostStamp(Long getId, LocalDateTime getUpdatedAt, long getVersion) implements PostStamp {
+    }
+
+    private static final RowMapper<Post> POST = (rs, rowNum) -> {
+        Post post = new Post();
+        post.setId(rs.getLong("id"));
+        post.setTitle(rs.getString("title"));
+        post.setContent(CONTENT.convertToEntityAttribute(rs.getBytes("content")));
+        post.setAuthorId(rs.getObject("author_id", Long.class));
+        post.setCreatedAt(toLocal(rs.getTimestamp("created_at")));
+        post.setUpdatedAt(toLocal(rs.getTimestamp("updated_at")));
+        post.setVersion(rs.getLong("version"));
+        return post;
+    };
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<Post> findById(Long id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM posts_archive WHERE id = :id", Map.of("id", id), POST)
+                .stream().findFirst();
+    }
+
+    public Optional<PostStamp> findStampById(Long id) {
+        return jdbcTemplate.query("SELECT id, updated_at, version FROM posts_archive WHERE id = :id",
+                Map.of("id", id), (rs, rowNum) -> (PostStamp) new ArchivedPostStamp(rs.getLong("id"),
+                        toLocal(rs.getTimestamp("updated_at")), rs.getLong("version"))).stream().findFirst();
+    }
+
+    public List<Post> findAll() {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM posts_archive", POST);
+    }
+
+    // Served by idx_posts_archive_author_created
+    public List<Post> findByAuthorId(Long authorId) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM posts_archive WHERE author_id = :authorId",
+                Map.of("authorId", authorId), POST);
+    }
+
+    public Optional<Long> findAuthorIdById(Long id) {
+        return jdbcTemplate.queryForList("SELECT author_id FROM posts_archive WHERE id = :id", Map.of("id", id),
+                Long.class).stream().findFirst();
+    }
+
+    public FeedStamp findFeedStamp() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) AS cnt, MAX(id) AS last_id, MAX(updated_at) AS "
+                        + "last_updated FROM posts_archive", Map.of(),
+                (rs, rowNum) -> new Stamp(rs.getLong("cnt"), rs.getObject("last_id", Long.class),
+                        toLocal(rs.getTimestamp("last_updated"))));
+    }
+
+    /**
+     * Oldest posts in the hot table not edited since the cutoff, from idx_posts_updated_at.
+     */
+    public List<Long> findIdsToArchive(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM posts WHERE updated_at < :cutoff ORDER BY updated_at "
+                + "LIMIT :limit", new MapSqlParameterSource("cutoff", cutoff).addValue("limit", limit), Long.class);
+    }
+
+    /**
+     * Moves the given posts to the archive, skipping any edited since the cutoff.
+     *
+     * @return the number of posts moved
+     */
+    @Transactional
+    public int archive(List<Long> ids, LocalDateTime cutoff) {
+        // Locks the rows and re-checks them, so a concurrent edit either waits or wins
+        List<Long> locked = jdbcTemplate.queryForList("SELECT id FROM posts WHERE id IN (:ids) "
+                + "AND updated_at < :cutoff FOR UPDATE",
+                new MapSqlParameterSource("ids", ids).addValue("cutoff", cutoff), Long.class);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", locked)
+                .addValue("now", LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO posts_archive (" + COLUMNS + ", archived_at) SELECT " + COLUMNS
+                + ", :now FROM posts WHERE id IN (:ids)", params);
+        return jdbcTemplate.update("DELETE FROM posts WHERE id IN (:ids)", params);
+    }
+
+    /**
+     * Moves an archived post back to the hot table, keeping its id and version.
+     *
+     * @return false if the post is not in the archive
+     */
+    @Transactional
+    public boolean restore(Long id) {
+        Map<String, Long> params = Map.of("id", id);
+        if (jdbcTemplate.queryForList("SELECT id FROM posts_archive WHERE id = :id FOR UPDATE", params, Long.class)
+                .isEmpty()) {
+            return false;
+        }
+        jdbcTemplate.update("INSERT INTO posts (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM posts_archive WHERE id = :id", params);
+        jdbcTemplate.update("DELETE FROM posts_archive WHERE id = :id", params);
+        return true;
+    }
+
+    public int deleteById(Long id) {
+        return jdbcTemplate.update("DELETE FROM posts_archive WHERE id = :id", Map.of("id", id));
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
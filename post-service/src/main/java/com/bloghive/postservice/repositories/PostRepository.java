@@ -1,10 +1,23 @@
 package com.bloghive.postservice.repositories;
 
+import com.bloghive.postservice.models.FeedStamp;
 import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.PostStamp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface PostRepository extends JpaRepository<Post, Long> {
+public interface PostRepository extends JpaRepository<Post, Long>, PostRepositoryCustom {
     List<Post> findByAuthorId(Long authorId);
+
+    Optional<PostStamp> findStampById(Long id);
+
+    // Primary key lookup of one column, for ownership checks
+    @Query("SELECT p.authorId FROM Post p WHERE p.id = :id")
+    Optional<Long> findAuthorIdById(Long id);
+
+    @Query("SELECT COUNT(p) AS count, MAX(p.id) AS lastId, MAX(p.updatedAt) AS lastUpdated FROM Post p")
+    FeedStamp findFeedStamp();
 }
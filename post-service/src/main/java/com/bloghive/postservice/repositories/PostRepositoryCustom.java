@@ -0,0 +1,13 @@
+package com.bloghive.postservice.repositories;
+
+public interface PostRepositoryCustom {
+
+    /**
+     * Updates only the non-null fields of a post in a single statement and
+     * bumps its version. When expectedVersion is given the row is only touched
+     * if it still has that version.
+     *
+     * @return the number of rows updated, 0 if the post is missing or stale
+     */
+    int updateChangedFields(Long id, Long expectedVersion, String title, String content);
+}
@@ -0,0 +1,43 @@
+package com.bloghive.postservice.repositories;
+
+import com.bloghive.postservice.models.Post;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public class PostRepositoryImpl implements PostRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateChangedFields(Long id, Long expectedVersion, String title, String content) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Post> update = cb.createCriteriaUpdate(Post.class);
+        Root<Post> post = update.from(Post.class);
+
+        if (title != null) {
+            update.set(post.<String>get("title"), title);
+        }
+        if (content != null) {
+            update.set(post.<String>get("content"), content);
+        }
+        // Bulk updates skip entity callbacks, so maintain these by hand
+        update.set(post.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        update.set(post.<Long>get("version"), cb.sum(post.<Long>get("version"), 1L));
+
+        Predicate where = cb.equal(post.get("id"), id);
+        if (expectedVersion != null) {
+            where = cb.and(where, cb.equal(post.get("version"), expectedVersion));
+        }
+        update.where(where);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
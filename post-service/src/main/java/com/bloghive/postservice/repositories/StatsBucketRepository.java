@@ -0,0 +1,21 @@
+package com.bloghive.postservice.repositories;
+
+import com.bloghive.postservice.models.StatsBucket;
+import com.bloghive.postservice.models.StatsPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StatsBucketRepository extends JpaRepository<StatsBucket, StatsBucket.Key> {
+
+    // A range scan on the primary key
+    List<StatsBucket> findBySubjectAndSubjectIdAndPeriodAndBucketStartBetweenOrderByBucketStart(
+            StatsBucket.Subject subject, Long subjectId, StatsPeriod period, LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM StatsBucket b WHERE b.period = :period AND b.bucketStart < :before")
+    int deleteOlderThan(StatsPeriod period, LocalDateTime before);
+}
@@ -0,0 +1,68 @@
+package com.bloghive.postservice.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Grants a request when the caller owns the resource named by a path variable.
+ *
+ * The variable is the one the rule's request matcher has already extracted,
+ * and owners are looked up through a function that is expected to be cached
+ * (see PostOwners), so a check is a map lookup and a comparison. Requests for
+ * resources without a known owner are denied, including ones that do not exist.
+ */
+public class OwnerAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+    private final String variable;
+    private final Function<Long, Optional<Long>> ownerOf;
+
+    public OwnerAuthorizationManager(String variable, Function<Long, Optional<Long>> ownerOf) {
+        this.variable = variable;
+        this.ownerOf = ownerOf;
+    }
+
+    /**
+     * For paths that name the user themselves, e.g. /posts/author/{authorId}.
+     */
+    public static OwnerAuthorizationManager self(String variable) {
+        return new OwnerAuthorizationManager(variable, Optional::of);
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Long caller = userId(authentication.get());
+        Long id = parse(context.getVariables().get(variable));
+        if (caller == null || id == null) {
+            return DENIED;
+        }
+        return ownerOf.apply(id).filter(caller::equals).isPresent() ? GRANTED : DENIED;
+    }
+
+    // The JWT filter puts the user id in the principal
+    private static Long userId(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal() == null) {
+            return null;
+        }
+        return parse(authentication.getPrincipal().toString());
+    }
+
+    private static Long parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
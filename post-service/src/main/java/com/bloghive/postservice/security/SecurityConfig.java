@@ -1,5 +1,7 @@
 package com.bloghive.postservice.security;
 
+import com.bloghive.postservice.services.IdempotencyService;
+import com.bloghive.postservice.services.PostOwners;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,6 +10,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
@@ -17,17 +20,31 @@ public class SecurityConfig {
     @Autowired
     private JwtTokenAuthenticationFilter jwtTokenAuthenticationFilter;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PostOwners postOwners;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        // Only the post's author may change it; the owner comes from PostOwners, not a query per request
+        OwnerAuthorizationManager postAuthor = new OwnerAuthorizationManager("id", postOwners::authorOf);
         http.csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(jwtTokenAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new IdempotencyFilter(idempotencyService), AuthorizationFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.GET, "/posts", "/posts/{id}").permitAll()
                         .requestMatchers(HttpMethod.POST, "/posts").authenticated()
-                        .requestMatchers(HttpMethod.PUT, "/posts/{id}").authenticated()
-                        .requestMatchers(HttpMethod.DELETE, "/posts/{id}").authenticated()
-                        .requestMatchers(HttpMethod.GET, "/posts/author/{authorId}").authenticated()
+                        .requestMatchers(HttpMethod.PUT, "/posts/{id}").access(postAuthor)
+                        .requestMatchers(HttpMethod.PATCH, "/posts/{id}").access(postAuthor)
+                        .requestMatchers(HttpMethod.DELETE, "/posts/{id}").access(postAuthor)
+                        .requestMatchers(HttpMethod.GET, "/posts/author/{authorId}")
+                                .access(OwnerAuthorizationManager.self("authorId"))
+                        .requestMatchers(HttpMethod.GET, "/authors/{authorId}/stats", "/authors/{authorId}/stats/**")
+                                .access(OwnerAuthorizationManager.self("authorId"))
+                        .requestMatchers(HttpMethod.POST, "/authors/stats/comment-events").hasAuthority("SERVICE")
                         .anyRequest().authenticated());
         return http.build();
     }
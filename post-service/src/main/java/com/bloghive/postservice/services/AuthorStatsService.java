@@ -0,0 +1,155 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.AuthorStats;
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.StatsBucket;
+import com.bloghive.postservice.models.StatsPeriod;
+import com.bloghive.postservice.repositories.StatsBucketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the per-author and per-post rollups behind the author dashboard.
+ *
+ * Every write adds its delta to the hour, day and all-time bucket of the post
+ * and of its author with one batched upsert. Views are too frequent for that,
+ * so they are counted in memory and flushed on a timer; a crash loses at most
+ * one flush interval of views. Publishing counts publish events, so deleting
+ * a post does not rewrite history.
+ */
+@Service
+public class AuthorStatsService {
+
+    private static final String UPSERT = "INSERT INTO stats_bucket "
+            + "(subject, subject_id, period, bucket_start, posts_published, comments_received, views) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "posts_published = posts_published + VALUES(posts_published), "
+            + "comments_received = comments_received + VALUES(comments_received), "
+            + "views = views + VALUES(views)";
+
+    private static final StatsPeriod[] PERIODS = StatsPeriod.values();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatsBucketRepository statsBucketRepository;
+
+    // Only the author is needed, so this never pulls post bodies into the post cache
+    @Autowired
+    private PostOwners postOwners;
+
+    @Value("${posts.stats.hourly-retention:14d}")
+    private Duration hourlyRetention;
+
+    // Views since the last flush, per post id
+    private final Map<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    public void recordPublished(Post post) {
+        List<Object[]> rows = new ArrayList<>();
+        addRows(rows, StatsBucket.Subject.AUTHOR, post.getAuthorId(), now(), 1, 0, 0);
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+
+    /**
+     * Adds comments received by a post; negative when comments were deleted.
+     */
+    public void recordComments(Long postId, long delta) {
+        Optional<Long> authorId = postOwners.authorOf(postId);
+        if (authorId.isEmpty() || delta == 0) {
+            return;
+        }
+        LocalDateTime now = now();
+        List<Object[]> rows = new ArrayList<>();
+        addRows(rows, StatsBucket.Subject.POST, postId, now, 0, delta, 0);
+        addRows(rows, StatsBucket.Subject.AUTHOR, authorId.get(), now, 0, delta, 0);
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+
+    public void recordView(Long postId) {
+        pendingViews.merge(postId, 1L, Long::sum);
+    }
+
+    @Scheduled(fixedDelayString = "${posts.stats.view-flush-interval:5s}")
+    public void flushViews() {
+        LocalDateTime now = now();
+        List<Object[]> rows = new ArrayList<>();
+        Map<Long, Long> viewsByAuthor = new HashMap<>();
+        for (Long postId : pendingViews.keySet()) {
+            // Views counted after this remove start a new entry for the next flush
+            Long views = pendingViews.remove(postId);
+            Optional<Long> authorId = postOwners.authorOf(postId);
+            if (views == null || authorId.isEmpty()) {
+                continue;
+            }
+            addRows(rows, StatsBucket.Subject.POST, postId, now, 0, 0, views);
+            viewsByAuthor.merge(authorId.get(), views, Long::sum);
+        }
+        viewsByAuthor.forEach((authorId, views) ->
+                addRows(rows, StatsBucket.Subject.AUTHOR, authorId, now, 0, 0, views));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+        }
+    }
+
+    @Scheduled(cron = "${posts.stats.cleanup-cron:0 15 * * * *}")
+    @Transactional
+    public void dropExpiredHourlyBuckets() {
+        statsBucketRepository.deleteOlderThan(StatsPeriod.HOUR, now().minus(hourlyRetention));
+    }
+
+    public AuthorStats getAuthorStats(Long authorId, StatsPeriod period, LocalDateTime from, LocalDateTime to) {
+        return getStats(StatsBucket.Subject.AUTHOR, authorId, authorId, period, from, to);
+    }
+
+    public AuthorStats getPostStats(Long authorId, Long postId, StatsPeriod period, LocalDateTime from,
+            LocalDateTime to) {
+        return getStats(StatsBucket.Subject.POST, postId, authorId, period, from, to);
+    }
+
+    private AuthorStats getStats(StatsBucket.Subject subject, Long subjectId, Long authorId, StatsPeriod period,
+            LocalDateTime from, LocalDateTime to) {
+        StatsBucket totals = statsBucketRepository
+                .findById(new StatsBucket.Key(subject, subjectId, StatsPeriod.ALL, StatsPeriod.ALL_TIME))
+                .orElseGet(() -> emptyTotals(subject, subjectId));
+        List<StatsBucket> buckets = statsBucketRepository
+                .findBySubjectAndSubjectIdAndPeriodAndBucketStartBetweenOrderByBucketStart(
+                        subject, subjectId, period, period.bucketStart(from), to);
+        return new AuthorStats(authorId, period, totals, buckets);
+    }
+
+    private static StatsBucket emptyTotals(StatsBucket.Subject subject, Long subjectId) {
+        StatsBucket totals = new StatsBucket();
+        totals.setSubject(subject);
+        totals.setSubjectId(subjectId);
+        totals.setPeriod(StatsPeriod.ALL);
+        totals.setBucketStart(StatsPeriod.ALL_TIME);
+        return totals;
+    }
+
+    private static void addRows(List<Object[]> rows, StatsBucket.Subject subject, Long subjectId,
+            LocalDateTime time, long posts, long comments, long views) {
+        for (StatsPeriod period : PERIODS) {
+            rows.add(new Object[] {subject.name(), subjectId, period.name(), period.bucketStart(time),
+                    posts, comments, views});
+        }
+    }
+
+    public static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,125 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.FeedStamp;
+import com.bloghive.postservice.repositories.PostArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves posts that have not been edited for posts.archive.max-age from posts
+ * to posts_archive, so the hot table and its indexes stay small enough to be
+ * cached by MySQL.
+ *
+ * Work is split into batches of batch-size posts, each its own short
+ * transaction that locks only the rows being moved, with a pause in between
+ * so request traffic gets the database back. A run stops after max-batches
+ * and the rest waits for the next one. Reads fall back to the archive (see
+ * PostService), and editing an archived post moves it back first.
+ *
+ * The same ids, versions and timestamps move with the post, so caches,
+ * ETags and ownership checks are unaffected by where a post is stored.
+ */
+@Service
+public class PostArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(PostArchiver.class);
+
+    @Autowired
+    private PostArchiveRepository postArchiveRepository;
+
+    @Value("${posts.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${posts.archive.max-age:365d}")
+    private Duration maxAge;
+
+    @Value("${posts.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${posts.archive.batch-pause:200ms}")
+    private Duration batchPause;
+
+    @Value("${posts.archive.max-batches:100}")
+    private int maxBatches;
+
+    // Counting the archive scans it, so the feed validator reuses the result for a while.
+    // Changes made here drop it at once; other instances see them within stamp-ttl.
+    @Value("${posts.archive.stamp-ttl:10s}")
+    private Duration stampTtl;
+
+    private record CachedStamp(FeedStamp stamp, long loadedAt) {
+    }
+
+    private volatile CachedStamp archivedStamp;
+
+    @Scheduled(fixedDelayString = "${posts.archive.interval:10m}", initialDelayString = "${posts.archive.interval:10m}")
+    public void archiveOldPosts() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        int moved = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Long> ids = postArchiveRepository.findIdsToArchive(cutoff, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            moved += postArchiveRepository.archive(ids, cutoff);
+            archivedStamp = null;
+            if (ids.size() < batchSize || !pause()) {
+                break;
+            }
+        }
+        if (moved > 0) {
+            log.info("Archived {} posts last edited before {}", moved, cutoff);
+        }
+    }
+
+    /**
+     * Moves an archived post back to the hot table before it is written.
+     *
+     * @return false if the post is not in the archive
+     */
+    public boolean restore(Long id) {
+        boolean restored = postArchiveRepository.restore(id);
+        if (restored) {
+            archivedStamp = null;
+        }
+        return restored;
+    }
+
+    public void delete(Long id) {
+        if (postArchiveRepository.deleteById(id) > 0) {
+            archivedStamp = null;
+        }
+    }
+
+    public FeedStamp archivedFeedStamp() {
+        CachedStamp cached = archivedStamp;
+        long now = System.nanoTime();
+        if (cached == null || now - cached.loadedAt() > stampTtl.toNanos()) {
+            cached = new CachedStamp(postArchiveRepository.findFeedStamp(), now);
+            archivedStamp = cached;
+        }
+        return cached.stamp();
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            // Shutting down; the remaining posts are picked up after the restart
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
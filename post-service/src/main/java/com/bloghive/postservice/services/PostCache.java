@@ -0,0 +1,229 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.PostStamp;
+import com.bloghive.postservice.repositories.PostArchiveRepository;
+import com.bloghive.postservice.repositories.PostRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Two-level cache for single posts.
+ *
+ * Level one is a small Caffeine cache in every instance; level two is Redis,
+ * shared by all instances and only used when posts.cache.shared.enabled is
+ * set. Concurrent misses for the same post are collapsed into one load per
+ * instance. Every write evicts both levels and publishes the post id on
+ * {@link #INVALIDATION_CHANNEL} so the other instances drop their copy too.
+ *
+ * Pub/sub delivery is best effort, so both levels also expire: an edit is
+ * visible everywhere within near-ttl plus shared-ttl even if a message is
+ * lost or a reader re-populates Redis with a value read just before the write.
+ *
+ * Sizes and TTLs follow configuration refreshes; the near cache is resized
+ * in place, so it stays warm.
+ */
+@Component
+public class PostCache {
+
+    public static final String INVALIDATION_CHANNEL = "posts:invalidate";
+
+    private static final Logger log = LoggerFactory.getLogger(PostCache.class);
+    private static final String KEY_PREFIX = "post:";
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostArchiveRepository postArchiveRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    // Needs a restart, the Redis subscription is only set up at startup
+    @Value("${posts.cache.shared.enabled:false}")
+    private boolean sharedEnabled;
+
+    private record Settings(long nearMaxSize, Duration nearTtl, Duration sharedTtl) {
+        static Settings from(Environment environment) {
+            Binder binder = Binder.get(environment);
+            return new Settings(
+                    binder.bind("posts.cache.near.max-size", Long.class).orElse(10_000L),
+                    binder.bind("posts.cache.near.ttl", Duration.class).orElse(Duration.ofSeconds(10)),
+                    binder.bind("posts.cache.shared.ttl", Duration.class).orElse(Duration.ofSeconds(60)));
+        }
+    }
+
+    private record CachedStamp(Long getId, LocalDateTime getUpdatedAt, long getVersion) implements PostStamp {
+    }
+
+    private volatile Settings settings;
+    private Cache<Long, Post> near;
+    private Counter sharedHits;
+    private Counter sharedMisses;
+
+    @PostConstruct
+    void init() {
+        settings = Settings.from(environment);
+        near = Caffeine.newBuilder()
+                .maximumSize(settings.nearMaxSize())
+                .expireAfterWrite(settings.nearTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, near, "posts.near");
+        // Same meter and tags as the Caffeine binder so both levels show up side by side
+        sharedHits = Counter.builder("cache.gets").tag("cache", "posts.shared").tag("result", "hit")
+                .register(meterRegistry);
+        sharedMisses = Counter.builder("cache.gets").tag("cache", "posts.shared").tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a private copy of the post, so callers may modify it freely.
+     */
+    public Optional<Post> get(Long id) {
+        // Caffeine runs the loader once per key while other callers wait for it
+        Post post = near.get(id, this::load);
+        return Optional.ofNullable(post).map(PostCache::copyOf);
+    }
+
+    /**
+     * Validators of the copy in the near cache, without loading the post on a miss.
+     */
+    public Optional<PostStamp> getCachedStamp(Long id) {
+        return Optional.ofNullable(near.getIfPresent(id))
+                .map(post -> new CachedStamp(post.getId(), post.getUpdatedAt(), post.getVersion()));
+    }
+
+    /**
+     * Drops the post from both levels here and tells the other instances to do the same.
+     * Call after the write has been committed.
+     */
+    public void invalidate(Long id) {
+        near.invalidate(id);
+        if (!sharedEnabled) {
+            return;
+        }
+        try {
+            StringRedisTemplate redis = redisTemplate.getObject();
+            redis.delete(KEY_PREFIX + id);
+            redis.convertAndSend(INVALIDATION_CHANNEL, id.toString());
+        } catch (RuntimeException e) {
+            log.warn("Could not invalidate post {} in the shared cache: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Handles an invalidation published by any instance, including this one.
+     */
+    public void evictLocal(String message) {
+        try {
+            near.invalidate(Long.valueOf(message));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed post invalidation '{}'", message);
+        }
+    }
+
+    /**
+     * Picks up new sizes and TTLs after a configuration refresh. Entries
+     * beyond a smaller maximum are evicted as usual; shared entries already
+     * written keep the TTL they were written with.
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().noneMatch(key -> key.startsWith("posts.cache."))) {
+            return;
+        }
+        Settings next = Settings.from(environment);
+        near.policy().eviction().ifPresent(eviction -> eviction.setMaximum(next.nearMaxSize()));
+        near.policy().expireAfterWrite().ifPresent(expiry -> expiry.setExpiresAfter(next.nearTtl()));
+        settings = next;
+        log.info("Post cache reconfigured: {}", next);
+    }
+
+    private Post load(Long id) {
+        Post shared = readShared(id);
+        if (shared != null) {
+            return shared;
+        }
+        // Archiving keeps id and version, so a cached copy stays valid when the post moves
+        Post post = postRepository.findById(id).or(() -> postArchiveRepository.findById(id)).orElse(null);
+        if (post != null) {
+            writeShared(post);
+        }
+        return post;
+    }
+
+    // A broken Redis only costs us the shared level, never the read itself
+    private Post readShared(Long id) {
+        if (!sharedEnabled) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.getObject().opsForValue().get(KEY_PREFIX + id);
+            if (json == null) {
+                sharedMisses.increment();
+                return null;
+            }
+            sharedHits.increment();
+            return objectMapper.readValue(json, Post.class);
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Shared cache read for post {} failed: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(Post post) {
+        if (!sharedEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.getObject().opsForValue()
+                    .set(KEY_PREFIX + post.getId(), objectMapper.writeValueAsString(post), settings.sharedTtl());
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Shared cache write for post {} failed: {}", post.getId(), e.getMessage());
+        }
+    }
+
+    private static Post copyOf(Post post) {
+        Post copy = new Post();
+        copy.setId(post.getId());
+        copy.setTitle(post.getTitle());
+        copy.setContent(post.getContent());
+        copy.setAuthorId(post.getAuthorId());
+        copy.setCreatedAt(post.getCreatedAt());
+        copy.setUpdatedAt(post.getUpdatedAt());
+        copy.setVersion(post.getVersion());
+        return copy;
+    }
+}
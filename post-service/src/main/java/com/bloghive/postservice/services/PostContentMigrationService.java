@@ -0,0 +1,110 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.PostContentConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites post bodies stored before compression was introduced.
+ *
+ * Works in small id-ordered batches with a pause in between so the table is
+ * never locked for long and the service keeps serving requests while it runs.
+ * Each row is only rewritten if it still holds the legacy bytes, so a post
+ * edited mid-run is left alone. The content column is made LONGBLOB by the
+ * V4 migration, which runs before this.
+ */
+@Service
+public class PostContentMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PostContentMigrationService.class);
+
+    private final PostContentConverter converter = new PostContentConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${posts.content-compression.migrate-on-startup:false}")
+    private boolean migrateOnStartup;
+
+    @Value("${posts.content-compression.batch-size:500}")
+    private int batchSize;
+
+    @Value("${posts.content-compression.pause-ms:200}")
+    private long pauseMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (!migrateOnStartup) {
+            return;
+        }
+        Thread worker = new Thread(this::compressExistingPosts, "post-content-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Walks the whole table once and returns the number of rows rewritten.
+     */
+    public int compressExistingPosts() {
+        long afterId = 0;
+        int rewritten = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, content FROM posts WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getBytes(2) },
+                    afterId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            rewritten += compressBatch(rows);
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+            log.info("Post content migration: {} rows rewritten, up to id {}", rewritten, afterId);
+            if (!pause()) {
+                break;
+            }
+        }
+        return rewritten;
+    }
+
+    private int compressBatch(List<Object[]> rows) {
+        List<Object[]> updates = new ArrayList<>();
+        for (Object[] row : rows) {
+            byte[] stored = (byte[]) row[1];
+            if (stored == null || PostContentConverter.isEncoded(stored)) {
+                continue;
+            }
+            byte[] encoded = converter.convertToDatabaseColumn(new String(stored, StandardCharsets.UTF_8));
+            updates.add(new Object[] { encoded, row[0], stored });
+        }
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE posts SET content = ? WHERE id = ? AND content = ?", updates);
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
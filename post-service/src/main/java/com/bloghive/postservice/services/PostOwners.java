@@ -0,0 +1,69 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.repositories.PostArchiveRepository;
+import com.bloghive.postservice.repositories.PostRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Author id of every post, for ownership checks on writes.
+ *
+ * A post never changes author, so entries cannot go stale and need neither a
+ * TTL nor invalidation across instances. Posts created here are added when
+ * they are saved; others are loaded once, by primary key and a single column.
+ * Missing posts are not cached, so one created on another instance is found
+ * as soon as it is committed.
+ */
+@Component
+public class PostOwners {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostArchiveRepository postArchiveRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${posts.owners.max-size:100000}")
+    private long maxSize;
+
+    private Cache<Long, Long> authors;
+
+    @PostConstruct
+    void init() {
+        authors = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, authors, "posts.owners");
+    }
+
+    /**
+     * Empty when the post does not exist or has no author.
+     */
+    public Optional<Long> authorOf(Long postId) {
+        return Optional.ofNullable(authors.get(postId, id -> postRepository.findAuthorIdById(id)
+                .or(() -> postArchiveRepository.findAuthorIdById(id)).orElse(null)));
+    }
+
+    public void remember(Post post) {
+        if (post.getId() != null && post.getAuthorId() != null) {
+            authors.put(post.getId(), post.getAuthorId());
+        }
+    }
+
+    public void forget(Long postId) {
+        authors.invalidate(postId);
+    }
+}
@@ -1,36 +1,143 @@
 package com.bloghive.postservice.services;
 
+import com.bloghive.postservice.models.FeedStamp;
 import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.PostStamp;
+import com.bloghive.postservice.repositories.PostArchiveRepository;
 import com.bloghive.postservice.repositories.PostRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Posts live in the hot table or, once PostArchiver has moved them, in the
+ * archive. Reads look at both; writes to an archived post move it back first.
+ */
 @Service
 public class PostService {
 
+    private record CombinedStamp(Long getCount, Long getLastId, LocalDateTime getLastUpdated) implements FeedStamp {
+    }
+
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private AuthorStatsService authorStatsService;
+
+    @Autowired
+    private PostOwners postOwners;
+
+    @Autowired
+    private PostArchiveRepository postArchiveRepository;
+
+    @Autowired
+    private PostArchiver postArchiver;
+
     public List<Post> findAll() {
-        return postRepository.findAll();
+        return union(postRepository.findAll(), postArchiveRepository.findAll());
     }
 
     public Optional<Post> findById(Long id) {
-        return postRepository.findById(id);
+        return postCache.get(id);
+    }
+
+    // Bypasses the cache, for read-modify-write on the current row
+    public Optional<Post> findByIdForUpdate(Long id) {
+        Optional<Post> post = postRepository.findById(id);
+        if (post.isEmpty() && postArchiver.restore(id)) {
+            post = postRepository.findById(id);
+        }
+        return post;
+    }
+
+    public Optional<PostStamp> findStampById(Long id) {
+        return postRepository.findStampById(id);
+    }
+
+    /**
+     * Validators for a conditional GET: from the cached copy when there is one,
+     * otherwise one narrow query, so a 304 never loads or decodes the body.
+     */
+    public Optional<PostStamp> findReadStampById(Long id) {
+        return postCache.getCachedStamp(id)
+                .or(() -> postRepository.findStampById(id))
+                .or(() -> postArchiveRepository.findStampById(id));
+    }
+
+    public FeedStamp getFeedStamp() {
+        FeedStamp hot = postRepository.findFeedStamp();
+        FeedStamp archived = postArchiver.archivedFeedStamp();
+        return new CombinedStamp(hot.getCount() + archived.getCount(),
+                max(hot.getLastId(), archived.getLastId()), max(hot.getLastUpdated(), archived.getLastUpdated()));
     }
 
     public Post save(Post post) {
-        return postRepository.save(post);
+        boolean isNew = post.getId() == null;
+        Post saved = postRepository.save(post);
+        postCache.invalidate(saved.getId());
+        if (isNew) {
+            // Saves the first ownership check on the new post a query
+            postOwners.remember(saved);
+            authorStatsService.recordPublished(saved);
+        }
+        return saved;
+    }
+
+    public void recordView(Long id) {
+        authorStatsService.recordView(id);
+    }
+
+    public int updateChangedFields(Long id, Long expectedVersion, String title, String content) {
+        int updated = postRepository.updateChangedFields(id, expectedVersion, title, content);
+        if (updated == 0 && postArchiver.restore(id)) {
+            updated = postRepository.updateChangedFields(id, expectedVersion, title, content);
+        }
+        if (updated > 0) {
+            postCache.invalidate(id);
+        }
+        return updated;
     }
 
     public void deleteById(Long id) {
         postRepository.deleteById(id);
+        postArchiver.delete(id);
+        postCache.invalidate(id);
+        postOwners.forget(id);
     }
 
     public List<Post> findByAuthorId(Long authorId) {
-        return postRepository.findByAuthorId(authorId);
+        return union(postRepository.findByAuthorId(authorId), postArchiveRepository.findByAuthorId(authorId));
+    }
+
+    // Ordered by id like a single table, and without duplicates while a post is being moved
+    private static List<Post> union(List<Post> hot, List<Post> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<Post> posts = new ArrayList<>(hot.size() + archived.size());
+        posts.addAll(hot);
+        posts.addAll(archived);
+        posts.sort(Comparator.comparing(Post::getId));
+        Set<Long> seen = new HashSet<>();
+        posts.removeIf(post -> !seen.add(post.getId()));
+        return posts;
+    }
+
+    private static <T extends Comparable<? super T>> T max(T a, T b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.compareTo(b) >= 0 ? a : b;
     }
 }
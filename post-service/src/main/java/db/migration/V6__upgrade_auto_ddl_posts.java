@@ -0,0 +1,48 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Brings a posts table created by Hibernate auto-DDL before the migrations up
+ * to the V1 schema. V1 leaves such a table alone (CREATE TABLE IF NOT EXISTS),
+ * so it still lacks the optimistic-locking version column that ddl-auto:
+ * validate expects.
+ *
+ * Java rather than SQL because MySQL has no ADD COLUMN IF NOT EXISTS, and
+ * databases built by V1 already have the column.
+ */
+public class V6__upgrade_auto_ddl_posts extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!columns(connection, "posts").contains("version")) {
+            try (Statement statement = connection.createStatement()) {
+                // Existing posts start at version 0, like new ones
+                statement.execute("ALTER TABLE posts ADD COLUMN version BIGINT NOT NULL DEFAULT 0");
+            }
+        }
+    }
+
+    private static Set<String> columns(Connection connection, String table) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        Set<String> columns = new HashSet<>();
+        try (ResultSet rs = meta.getColumns(connection.getCatalog(), connection.getSchema(),
+                meta.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table, null)) {
+            while (rs.next()) {
+                columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,40 @@
+-- Schema as Hibernate auto-DDL created it before migrations were introduced.
+-- IF NOT EXISTS lets databases created that way adopt the migrations (they are
+-- baselined at version 0, see application.yml) while new databases are built here.
+
+CREATE TABLE IF NOT EXISTS posts (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255),
+    -- Compressed by PostContentConverter
+    content LONGBLOB,
+    author_id BIGINT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS stats_bucket (
+    subject VARCHAR(8) NOT NULL,
+    subject_id BIGINT NOT NULL,
+    period VARCHAR(8) NOT NULL,
+    bucket_start DATETIME(6) NOT NULL,
+    posts_published BIGINT NOT NULL,
+    comments_received BIGINT NOT NULL,
+    views BIGINT NOT NULL,
+    PRIMARY KEY (subject, subject_id, period, bucket_start),
+    INDEX idx_stats_period_start (period, bucket_start)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS idempotency_record (
+    key_hash VARCHAR(64) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    completed BIT NOT NULL,
+    status INTEGER NOT NULL,
+    content_type VARCHAR(255),
+    body LONGBLOB,
+    created_at DATETIME(6),
+    expires_at DATETIME(6),
+    PRIMARY KEY (key_hash),
+    INDEX idx_idempotency_expires (expires_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,5 @@
+-- PostRepository.findByAuthorId, newest first within an author
+CREATE INDEX idx_posts_author_created ON posts (author_id, created_at);
+
+-- MAX(updated_at) in the feed validator (PostRepository.findFeedStamp) becomes an index lookup
+CREATE INDEX idx_posts_updated_at ON posts (updated_at);
@@ -0,0 +1,16 @@
+-- Posts moved out of the hot table by PostArchiver. Same columns and ids, so a
+-- post can move back when it is edited; content keeps its compressed format.
+CREATE TABLE posts_archive (
+    id BIGINT NOT NULL,
+    title VARCHAR(255),
+    content LONGBLOB,
+    author_id BIGINT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    version BIGINT NOT NULL,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    -- Same lookups as on posts: by author, and MAX(updated_at) for the feed validator
+    INDEX idx_posts_archive_author_created (author_id, created_at),
+    INDEX idx_posts_archive_updated_at (updated_at)
+) ENGINE=InnoDB;
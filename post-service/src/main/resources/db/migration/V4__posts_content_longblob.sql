@@ -0,0 +1,5 @@
+-- Databases created by Hibernate auto-DDL before content was compressed still have a
+-- text column, which V1 leaves alone (IF NOT EXISTS) and ddl-auto: validate rejects.
+-- Existing bodies keep their UTF-8 bytes and are read back as legacy rows (see
+-- PostContentConverter) until PostContentMigrationService compresses them.
+ALTER TABLE posts MODIFY content LONGBLOB;
@@ -0,0 +1,2 @@
+-- Response headers replayed with a stored response (see IdempotencyFilter.STORED_HEADERS)
+ALTER TABLE idempotency_record ADD COLUMN headers VARCHAR(2048);
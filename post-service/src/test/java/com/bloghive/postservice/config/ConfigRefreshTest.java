@@ -0,0 +1,87 @@
+package com.bloghive.postservice.config;
+
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.services.PostService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Changes properties the way a bus refresh does: the environment is updated
+ * and an EnvironmentChangeEvent names the keys that changed.
+ */
+@SpringBootTest
+@DirtiesContext
+class ConfigRefreshTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void postCacheIsResizedWithoutLosingEntries() {
+        Post post = postService.save(newPost("Cached"));
+        postService.findById(post.getId());
+        double misses = nearMisses();
+
+        refresh(Map.of("posts.cache.near.max-size", "500"));
+        postService.findById(post.getId());
+        assertEquals(misses, nearMisses());
+
+        refresh(Map.of("posts.cache.near.ttl", "0s"));
+        postService.findById(post.getId());
+        postService.findById(post.getId());
+        assertEquals(misses + 2, nearMisses());
+    }
+
+    @Test
+    void connectionPoolIsResizedInPlace() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+
+        refresh(Map.of("spring.datasource.hikari.maximum-pool-size", "4"));
+
+        assertFalse(pool.isClosed());
+        assertEquals(4, pool.getHikariConfigMXBean().getMaximumPoolSize());
+        assertEquals(4, pool.getHikariConfigMXBean().getMinimumIdle());
+        assertNotNull(postService.save(newPost("Still writable")).getId());
+    }
+
+    private void refresh(Map<String, Object> changes) {
+        Map<String, Object> source = new HashMap<>(changes);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("refreshed-" + source, source));
+        context.publishEvent(new EnvironmentChangeEvent(context, changes.keySet()));
+    }
+
+    private double nearMisses() {
+        return meterRegistry.get("cache.gets").tag("cache", "posts.near").tag("result", "miss")
+                .functionCounter().count();
+    }
+
+    private static Post newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent("<p>Body</p>");
+        post.setAuthorId(1L);
+        return post;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bloghive.postservice.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Follows a write that arrives with a sampled trace from the gateway and
+ * checks that the JWT check, the repository call and its SQL are recorded
+ * in that trace, each under the one before.
+ */
+@SpringBootTest(properties = "management.otlp.tracing.export.enabled=false")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class TracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @TestConfiguration
+    static class InMemoryExport {
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    void writeIsTracedFromFilterToStatement() throws Exception {
+        mockMvc.perform(post("/posts")
+                .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+                .header("Authorization", "Bearer " + token())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Traced\",\"content\":\"<p>Body</p>\"}"));
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+
+        List<SpanData> spans = exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getTraceId().equals(TRACE_ID))
+                .toList();
+        SpanData request = find(spans, "http post /posts");
+        assertEquals("00f067aa0ba902b7", request.getParentSpanId());
+        assertTrue(isUnder(spans, find(spans, "jwt.verify"), request));
+        SpanData save = find(spans, "post-repository.save");
+        assertTrue(isUnder(spans, save, request));
+        assertTrue(spans.stream().anyMatch(span -> span.getName().equals("query")
+                && span.getParentSpanId().equals(save.getSpanId())), () -> "No statement under the save: " + spans);
+    }
+
+    private static SpanData find(List<SpanData> spans, String name) {
+        return spans.stream().filter(span -> span.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No span " + name + " in " + spans));
+    }
+
+    // Security and MVC add spans of their own in between
+    private static boolean isUnder(List<SpanData> spans, SpanData span, SpanData ancestor) {
+        for (SpanData current = span; current != null; ) {
+            if (current.getParentSpanId().equals(ancestor.getSpanId())) {
+                return true;
+            }
+            String parentId = current.getParentSpanId();
+            current = spans.stream().filter(s -> s.getSpanId().equals(parentId)).findFirst().orElse(null);
+        }
+        return false;
+    }
+
+    private String token() {
+        return Jwts.builder()
+                .setSubject("user7")
+                .claim("userId", 7L)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,240 @@
+package com.bloghive.postservice.controllers;
+
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.PostContentConverter;
+import com.bloghive.postservice.models.StatsPeriod;
+import com.bloghive.postservice.services.AuthorStatsService;
+import com.bloghive.postservice.services.PostService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:post-controller;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bloghive.postservice.controllers.PostControllerTest$Recorder"})
+@AutoConfigureMockMvc
+class PostControllerTest {
+
+    private static final long AUTHOR = 61L;
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoSpyBean
+    private PostService postService;
+
+    @Autowired
+    private AuthorStatsService authorStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    void revalidationSkipsTheBodyAndIsNotAView() throws Exception {
+        Post post = postService.save(newPost("Cold"));
+
+        Recorder.statements.clear();
+        mockMvc.perform(get("/posts/" + post.getId()).header(HttpHeaders.IF_NONE_MATCH, etag(post, 0)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertTrue(Recorder.statements.stream().noneMatch(sql -> sql.contains("content")), Recorder.statements::toString);
+
+        mockMvc.perform(get("/posts/" + post.getId()))
+                .andExpect(status().isOk());
+        authorStatsService.flushViews();
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(1, authorStatsService.getPostStats(AUTHOR, post.getId(), StatsPeriod.DAY,
+                now.minusDays(1), now).getTotals().getViews());
+    }
+
+    @Test
+    void postIsConditionalOnETagAndLastModified() throws Exception {
+        Post post = postService.save(newPost("Conditional"));
+
+        MockHttpServletResponse first = mockMvc.perform(get("/posts/" + post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(post, 0)))
+                .andReturn().getResponse();
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+        assertNotNull(lastModified);
+
+        mockMvc.perform(get("/posts/" + post.getId()).header(HttpHeaders.IF_NONE_MATCH, etag(post, 0)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/posts/" + post.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/posts/" + post.getId()).header(HttpHeaders.IF_MODIFIED_SINCE,
+                        "Thu, 01 Jan 2015 00:00:00 GMT"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void feedIsConditionalOnItsETagOnly() throws Exception {
+        Post post = postService.save(newPost("Feed"));
+
+        MockHttpServletResponse first = mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+
+        // Answered from the feed stamp alone
+        Recorder.statements.clear();
+        mockMvc.perform(get("/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertTrue(Recorder.statements.stream().noneMatch(sql -> sql.contains("content")), Recorder.statements::toString);
+
+        // A delete leaves MAX(updated_at) where it was, so a date can't validate the feed
+        postService.deleteById(post.getId());
+        mockMvc.perform(get("/posts").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/posts").header(HttpHeaders.IF_MODIFIED_SINCE, "Thu, 01 Jan 2099 00:00:00 GMT"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void putReplacesThePostUnlessIfMatchIsStale() throws Exception {
+        Post post = postService.save(newPost("Put"));
+
+        // If-Match is optional; without it the current version is replaced
+        mockMvc.perform(put("/posts/" + post.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Put once\",\"content\":\"<p>One</p>\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(post, 1)));
+
+        mockMvc.perform(put("/posts/" + post.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                        .header(HttpHeaders.IF_MATCH, etag(post, 0))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Stale\",\"content\":\"<p>Old</p>\"}"))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Put once", postService.findByIdForUpdate(post.getId()).orElseThrow().getTitle());
+
+        mockMvc.perform(put("/posts/" + post.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                        .header(HttpHeaders.IF_MATCH, etag(post, 1))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Put twice\",\"content\":\"<p>Two</p>\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(post, 2)))
+                .andExpect(jsonPath("$.title").value("Put twice"));
+    }
+
+    @Test
+    void putRacingAnotherWriterIsRejected() throws Exception {
+        Post post = postService.save(newPost("Raced"));
+        doAnswer(invocation -> {
+            Object loaded = invocation.callRealMethod();
+            // Another writer commits between this request's read and its write
+            jdbcTemplate.update("UPDATE posts SET version = version + 1 WHERE id = ?", post.getId());
+            return loaded;
+        }).when(postService).findByIdForUpdate(post.getId());
+
+        mockMvc.perform(put("/posts/" + post.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Lost\",\"content\":\"<p>x</p>\"}"))
+                .andExpect(status().isConflict());
+        // With If-Match the same race means the client's version is gone
+        mockMvc.perform(put("/posts/" + post.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                        .header(HttpHeaders.IF_MATCH, etag(post, 1))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Lost\",\"content\":\"<p>x</p>\"}"))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Raced", jdbcTemplate.queryForObject("SELECT title FROM posts WHERE id = ?", String.class,
+                post.getId()));
+    }
+
+    @Test
+    void patchWritesOnlyTheFieldsSent() throws Exception {
+        Post post = postService.save(newPost("Patched"));
+
+        Recorder.statements.clear();
+        mockMvc.perform(patch("/posts/" + post.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                        .header(HttpHeaders.IF_MATCH, etag(post, 0))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Renamed\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(post, 1)));
+        // A single UPDATE, with no read beforehand and the body left alone
+        assertEquals(1, Recorder.statements.size(), Recorder.statements::toString);
+        assertTrue(Recorder.statements.get(0).startsWith("update"), Recorder.statements::toString);
+        assertFalse(Recorder.statements.get(0).contains("content"), Recorder.statements::toString);
+
+        String body = "<p>" + "Most of the text in the body of a post is the same few words. ".repeat(10) + "</p>";
+        mockMvc.perform(patch("/posts/" + post.getId()).header(HttpHeaders.AUTHORIZATION, bearer())
+                        .header(HttpHeaders.IF_MATCH, etag(post, 1))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"content\":\"" + body + "\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(post, 2)));
+        // Bulk updates still go through the content converter
+        byte[] stored = jdbcTemplate.queryForObject("SELECT content FROM posts WHERE id = ?", byte[].class,
+                post.getId());
+        assertTrue(stored.length < body.length(), "stored " + stored.length + " bytes");
+        assertEquals(body, new PostContentConverter().convertToEntityAttribute(stored));
+
+        mockMvc.perform(get("/posts/" + post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(post, 2)))
+                .andExpect(jsonPath("$.title").value("Renamed"))
+                .andExpect(jsonPath("$.content").value(body))
+                .andExpect(jsonPath("$.version").value(2));
+    }
+
+    private static String etag(Post post, long version) {
+        return "\"post-" + post.getId() + "-" + version + "\"";
+    }
+
+    private String bearer() {
+        return "Bearer " + Jwts.builder()
+                .setSubject("user" + AUTHOR)
+                .claim("userId", AUTHOR)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private static Post newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent("<p>Body of " + title + "</p>");
+        post.setAuthorId(AUTHOR);
+        return post;
+    }
+}
@@ -0,0 +1,45 @@
+package com.bloghive.postservice.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostContentConverterTest {
+
+    private final PostContentConverter converter = new PostContentConverter();
+
+    @Test
+    void longBodiesAreCompressedAndRoundTrip() {
+        String body = "<h2>Heading</h2>" + "<p>Some <strong>bold</strong> and <em>italic</em> text.</p>".repeat(50);
+
+        byte[] stored = converter.convertToDatabaseColumn(body);
+
+        assertEquals(PostContentConverter.DEFLATE, stored[0]);
+        assertTrue(stored.length < body.length() / 4);
+        assertEquals(body, converter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    void shortBodiesAreStoredRaw() {
+        byte[] stored = converter.convertToDatabaseColumn("<p>Hi</p>");
+
+        assertEquals(PostContentConverter.RAW, stored[0]);
+        assertEquals("<p>Hi</p>", converter.convertToEntityAttribute(stored));
+    }
+
+    @Test
+    void legacyRowsAreReadAsPlainText() {
+        byte[] legacy = "<p>Written before compression</p>".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(PostContentConverter.isEncoded(legacy));
+        assertEquals("<p>Written before compression</p>", converter.convertToEntityAttribute(legacy));
+    }
+
+    @Test
+    void nullStaysNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
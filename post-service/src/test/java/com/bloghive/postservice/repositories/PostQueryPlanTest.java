@@ -0,0 +1,113 @@
+package com.bloghive.postservice.repositories;
+
+import com.bloghive.postservice.models.StatsBucket;
+import com.bloghive.postservice.models.StatsPeriod;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the repository queries against a seeded database and fails if the
+ * statements Hibernate sends stop using their index. The plans come from
+ * H2, so this catches missing indexes and queries written so that no index
+ * applies, not MySQL-specific optimizer choices.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:post-plans;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bloghive.postservice.repositories.PostQueryPlanTest$Recorder"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostQueryPlanTest {
+
+    private static final int POSTS = 20_000;
+    private static final int AUTHORS = 500;
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private StatsBucketRepository statsBucketRepository;
+
+    @BeforeAll
+    void seed() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> posts = new ArrayList<>();
+        List<Object[]> buckets = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            Timestamp at = Timestamp.valueOf(start.plusMinutes(i));
+            posts.add(new Object[] {"Post " + i, new byte[] {0}, (long) (i % AUTHORS), at, at});
+            buckets.add(new Object[] {"AUTHOR", (long) (i % AUTHORS), "HOUR", Timestamp.valueOf(start.plusHours(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (title, content, author_id, created_at, updated_at, version) "
+                + "VALUES (?, ?, ?, ?, ?, 0)", posts);
+        jdbcTemplate.batchUpdate("INSERT INTO stats_bucket (subject, subject_id, period, bucket_start, "
+                + "posts_published, comments_received, views) VALUES (?, ?, ?, ?, 0, 0, 1)", buckets);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void postsByAuthorUseTheAuthorIndex() {
+        assertPlan(() -> postRepository.findByAuthorId(7L), "IDX_POSTS_AUTHOR_CREATED", 7L);
+    }
+
+    @Test
+    void postStampIsAPrimaryKeyLookup() {
+        assertPlan(() -> postRepository.findStampById(7L), "PRIMARY_KEY", 7L);
+    }
+
+    @Test
+    void statsRangesArePrimaryKeyScans() {
+        LocalDateTime from = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime to = from.plusDays(7);
+        assertPlan(() -> statsBucketRepository.findBySubjectAndSubjectIdAndPeriodAndBucketStartBetweenOrderByBucketStart(
+                        StatsBucket.Subject.AUTHOR, 7L, StatsPeriod.HOUR, from, to),
+                "PRIMARY_KEY", "AUTHOR", 7L, "HOUR", from, to);
+    }
+
+    @Test
+    @Transactional
+    void statsCleanupUsesThePeriodIndex() {
+        LocalDateTime before = LocalDateTime.of(2024, 1, 2, 0, 0);
+        assertPlan(() -> statsBucketRepository.deleteOlderThan(StatsPeriod.HOUR, before),
+                "IDX_STATS_PERIOD_START", "HOUR", before);
+    }
+
+    /**
+     * Runs the call, which must issue exactly one statement, and checks the
+     * plan of that statement for the given parameters.
+     */
+    private void assertPlan(Runnable call, String index, Object... parameters) {
+        Recorder.statements.clear();
+        call.run();
+        assertEquals(1, Recorder.statements.size(), () -> "Expected one statement: " + Recorder.statements);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + Recorder.statements.get(0), String.class, parameters);
+        assertFalse(plan.contains("tableScan"), () -> "Full scan: " + plan);
+        assertTrue(plan.contains(index), () -> "Expected " + index + ": " + plan);
+    }
+}
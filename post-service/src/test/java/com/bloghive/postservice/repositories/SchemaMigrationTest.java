@@ -0,0 +1,43 @@
+package com.bloghive.postservice.repositories;
+
+import com.bloghive.postservice.models.PostContentConverter;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations over a database created by Hibernate auto-DDL before
+ * Flyway, with the same baseline settings as application.yml.
+ */
+class SchemaMigrationTest {
+
+    @Test
+    void autoDdlPostsTableIsBroughtUpToTheEntity() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:post-legacy;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // The posts table as auto-DDL made it before this series: text content and no version
+        jdbcTemplate.execute("CREATE TABLE posts (id BIGINT NOT NULL AUTO_INCREMENT, title VARCHAR(255), "
+                + "content VARCHAR(255), author_id BIGINT, created_at DATETIME(6), updated_at DATETIME(6), "
+                + "PRIMARY KEY (id))");
+        jdbcTemplate.update("INSERT INTO posts (title, content, author_id) VALUES (?, ?, 1)", "Old", "Legacy body");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        assertEquals("BINARY LARGE OBJECT", jdbcTemplate.queryForObject("SELECT DATA_TYPE FROM "
+                + "INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'POSTS' AND COLUMN_NAME = 'CONTENT'", String.class));
+        byte[] stored = jdbcTemplate.queryForObject("SELECT content FROM posts", byte[].class);
+        assertEquals("Legacy body", new PostContentConverter().convertToEntityAttribute(stored));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM posts", Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE INDEX_NAME = 'IDX_POSTS_AUTHOR_CREATED'", Integer.class));
+    }
+}
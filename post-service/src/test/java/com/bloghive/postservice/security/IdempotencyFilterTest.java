@@ -0,0 +1,86 @@
+package com.bloghive.postservice.security;
+
+import com.bloghive.postservice.repositories.PostRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    void retryWithSameKeyReplaysTheFirstResponse() throws Exception {
+        long before = postRepository.count();
+
+        MockHttpServletResponse first = createPost(7L, "retry-key", "Hello");
+        MockHttpServletResponse retry = createPost(7L, "retry-key", "Hello");
+
+        assertEquals(200, first.getStatus());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNotNull(first.getHeader(HttpHeaders.ETAG));
+        assertEquals(first.getHeader(HttpHeaders.ETAG), retry.getHeader(HttpHeaders.ETAG));
+        assertEquals(before + 1, postRepository.count());
+    }
+
+    @Test
+    void keyReusedForADifferentBodyIsRejected() throws Exception {
+        createPost(7L, "reused-key", "One");
+
+        assertEquals(422, createPost(7L, "reused-key", "Two").getStatus());
+    }
+
+    @Test
+    void keysAreScopedToTheCaller() throws Exception {
+        long before = postRepository.count();
+
+        createPost(7L, "shared-key", "Same");
+        MockHttpServletResponse other = createPost(8L, "shared-key", "Same");
+
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(before + 2, postRepository.count());
+    }
+
+    private MockHttpServletResponse createPost(Long userId, String key, String title) throws Exception {
+        return mockMvc.perform(post("/posts")
+                        .header("Authorization", "Bearer " + token(userId))
+                        .header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"content\":\"<p>Body</p>\"}"))
+                .andReturn().getResponse();
+    }
+
+    private String token(Long userId) {
+        return Jwts.builder()
+                .setSubject("user" + userId)
+                .claim("userId", userId)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,123 @@
+package com.bloghive.postservice.security;
+
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.repositories.PostRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:post-owners;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bloghive.postservice.security.OwnerAuthorizationTest$Recorder"})
+@AutoConfigureMockMvc
+class OwnerAuthorizationTest {
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Test
+    void onlyTheAuthorMayChangeAPost() throws Exception {
+        Long id = createPost(21L);
+
+        mockMvc.perform(put("/posts/" + id).header("Authorization", bearer(22L))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Hijacked\",\"content\":\"x\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(patch("/posts/" + id).header("Authorization", bearer(22L))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Hijacked\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/posts/" + id).header("Authorization", bearer(22L)))
+                .andExpect(status().isForbidden());
+        assertEquals("Mine", postRepository.findById(id).orElseThrow().getTitle());
+
+        mockMvc.perform(patch("/posts/" + id).header("Authorization", bearer(21L))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Still mine\"}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/posts/" + id).header("Authorization", bearer(21L)))
+                .andExpect(status().isOk());
+        assertTrue(postRepository.findById(id).isEmpty());
+    }
+
+    @Test
+    void ownershipOfAKnownPostIsCheckedWithoutQueries() throws Exception {
+        Long id = createPost(23L);
+
+        Recorder.statements.clear();
+        mockMvc.perform(delete("/posts/" + id).header("Authorization", bearer(24L)))
+                .andExpect(status().isForbidden());
+
+        assertEquals(List.of(), Recorder.statements);
+    }
+
+    @Test
+    void postsOfUnknownOwnersAreDenied() throws Exception {
+        Post orphan = new Post();
+        orphan.setTitle("Orphan");
+        Long id = postRepository.save(orphan).getId();
+
+        mockMvc.perform(delete("/posts/" + id).header("Authorization", bearer(25L)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/posts/999999").header("Authorization", bearer(25L)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void authorsOnlyListTheirOwnPosts() throws Exception {
+        mockMvc.perform(get("/posts/author/26").header("Authorization", bearer(26L)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/posts/author/26").header("Authorization", bearer(27L)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/authors/26/stats").header("Authorization", bearer(27L)))
+                .andExpect(status().isForbidden());
+    }
+
+    private Long createPost(Long userId) throws Exception {
+        String json = mockMvc.perform(post("/posts").header("Authorization", bearer(userId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Mine\",\"content\":\"<p>Body</p>\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.valueOf(json.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    private String bearer(Long userId) {
+        return "Bearer " + Jwts.builder()
+                .setSubject("user" + userId)
+                .claim("userId", userId)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
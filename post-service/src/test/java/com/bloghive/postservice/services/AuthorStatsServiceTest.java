@@ -0,0 +1,84 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.AuthorStats;
+import com.bloghive.postservice.models.Post;
+import com.bloghive.postservice.models.StatsBucket;
+import com.bloghive.postservice.models.StatsPeriod;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AuthorStatsServiceTest {
+
+    private static final long AUTHOR = 42L;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private AuthorStatsService authorStatsService;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Test
+    void writesRollUpIntoAuthorAndPostBuckets() {
+        Post first = postService.save(newPost("First"));
+        Post second = postService.save(newPost("Second"));
+
+        for (int i = 0; i < 5; i++) {
+            postService.recordView(first.getId());
+        }
+        postService.recordView(second.getId());
+        authorStatsService.flushViews();
+        authorStatsService.recordComments(first.getId(), 3);
+        authorStatsService.recordComments(first.getId(), -1);
+
+        LocalDateTime now = AuthorStatsService.now();
+        AuthorStats author = authorStatsService.getAuthorStats(AUTHOR, StatsPeriod.HOUR, now.minusHours(1), now);
+        assertEquals(2, author.getTotals().getPostsPublished());
+        assertEquals(6, author.getTotals().getViews());
+        assertEquals(2, author.getTotals().getCommentsReceived());
+
+        StatsBucket thisHour = author.getBuckets().get(author.getBuckets().size() - 1);
+        assertEquals(StatsPeriod.HOUR.bucketStart(now), thisHour.getBucketStart());
+        assertEquals(6, thisHour.getViews());
+
+        AuthorStats post = authorStatsService.getPostStats(AUTHOR, first.getId(), StatsPeriod.DAY,
+                now.minusDays(1), now);
+        assertEquals(5, post.getTotals().getViews());
+        assertEquals(2, post.getTotals().getCommentsReceived());
+        assertEquals(1, post.getBuckets().size());
+    }
+
+    @Test
+    void statsWritesDoNotLoadPostsIntoTheCache() {
+        Post post = newPost("Quiet");
+        post.setAuthorId(AUTHOR + 1);
+        post = postService.save(post);
+
+        postService.recordView(post.getId());
+        authorStatsService.flushViews();
+        authorStatsService.recordComments(post.getId(), 1);
+
+        assertTrue(postCache.getCachedStamp(post.getId()).isEmpty());
+        LocalDateTime now = AuthorStatsService.now();
+        AuthorStats stats = authorStatsService.getPostStats(AUTHOR + 1, post.getId(), StatsPeriod.DAY,
+                now.minusDays(1), now);
+        assertEquals(1, stats.getTotals().getViews());
+        assertEquals(1, stats.getTotals().getCommentsReceived());
+    }
+
+    private static Post newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent("<p>Body</p>");
+        post.setAuthorId(AUTHOR);
+        return post;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bloghive.postservice.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:post-idempotency;MODE=MySQL",
+        "idempotency.ttl=1s"})
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void expiredRecordsAreNotReplayed() throws Exception {
+        assertEquals(IdempotencyService.Outcome.PROCEED, idempotencyService.begin("expiring", "body").getOutcome());
+        idempotencyService.complete("expiring", "body", 200, "application/json", null,
+                "{}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(IdempotencyService.Outcome.REPLAY, idempotencyService.begin("expiring", "body").getOutcome());
+
+        Thread.sleep(1_100);
+        // Still stored, since the cleanup only runs hourly
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_record "
+                + "WHERE key_hash = 'expiring' AND expires_at < ?", Integer.class, LocalDateTime.now()));
+
+        // A different body is no mismatch either: the old request is forgotten
+        assertEquals(IdempotencyService.Outcome.PROCEED, idempotencyService.begin("expiring", "other").getOutcome());
+        idempotencyService.complete("expiring", "other", 201, "application/json", null, new byte[0]);
+        assertEquals(201, idempotencyService.begin("expiring", "other").getResponse().getStatus());
+    }
+}
@@ -0,0 +1,73 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.FeedStamp;
+import com.bloghive.postservice.models.Post;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:posts-archive;MODE=MySQL",
+        "posts.archive.max-age=30d",
+        "posts.archive.batch-size=2",
+        "posts.archive.batch-pause=0ms"})
+class PostArchiverTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostArchiver postArchiver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void oldPostsMoveToTheArchiveAndBackOnEdit() {
+        Post recent = postService.save(newPost("Recent"));
+        List<Post> old = List.of(postService.save(newPost("Old 1")), postService.save(newPost("Old 2")),
+                postService.save(newPost("Old 3")));
+        jdbcTemplate.update("UPDATE posts SET updated_at = ? WHERE id IN (?, ?, ?)",
+                LocalDateTime.now().minusDays(60), old.get(0).getId(), old.get(1).getId(), old.get(2).getId());
+        FeedStamp before = postService.getFeedStamp();
+
+        postArchiver.archiveOldPosts();
+
+        assertEquals(1, count("posts"));
+        assertEquals(3, count("posts_archive"));
+        // Reads see both tables as one
+        assertEquals(List.of(recent.getId(), old.get(0).getId(), old.get(1).getId(), old.get(2).getId()),
+                postService.findAll().stream().map(Post::getId).toList());
+        assertEquals(4, postService.findByAuthorId(7L).size());
+        assertEquals("Old 2", postService.findById(old.get(1).getId()).orElseThrow().getTitle());
+        FeedStamp after = postService.getFeedStamp();
+        assertEquals(before.getCount(), after.getCount());
+        assertEquals(before.getLastId(), after.getLastId());
+
+        assertEquals(1, postService.updateChangedFields(old.get(0).getId(), 0L, "Edited", null));
+        assertEquals(2, count("posts"));
+        assertEquals("Edited", postService.findById(old.get(0).getId()).orElseThrow().getTitle());
+
+        postService.deleteById(old.get(2).getId());
+        assertEquals(1, count("posts_archive"));
+        assertEquals(3, postService.getFeedStamp().getCount());
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static Post newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent("Body of " + title);
+        post.setAuthorId(7L);
+        return post;
+    }
+}
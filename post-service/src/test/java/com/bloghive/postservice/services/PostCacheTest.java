@@ -0,0 +1,83 @@
+package com.bloghive.postservice.services;
+
+import com.bloghive.postservice.models.Post;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PostCacheTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        Post post = postService.save(newPost("Popular"));
+        double missesBefore = nearMisses();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Post>> reads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            reads.add(pool.submit(() -> {
+                start.await();
+                return postService.findById(post.getId()).orElseThrow();
+            }));
+        }
+        start.countDown();
+        for (Future<Post> read : reads) {
+            assertEquals("Popular", read.get().getTitle());
+        }
+        pool.shutdown();
+
+        assertEquals(1, nearMisses() - missesBefore);
+    }
+
+    @Test
+    void writesInvalidate() {
+        Post post = postService.save(newPost("Before"));
+        assertEquals("Before", postService.findById(post.getId()).orElseThrow().getTitle());
+
+        postService.updateChangedFields(post.getId(), null, "After", null);
+        assertEquals("After", postService.findById(post.getId()).orElseThrow().getTitle());
+
+        postService.deleteById(post.getId());
+        assertTrue(postService.findById(post.getId()).isEmpty());
+    }
+
+    @Test
+    void callersGetPrivateCopies() {
+        Post post = postService.save(newPost("Original"));
+
+        postService.findById(post.getId()).orElseThrow().setTitle("Changed by a caller");
+
+        assertEquals("Original", postService.findById(post.getId()).orElseThrow().getTitle());
+    }
+
+    private double nearMisses() {
+        return meterRegistry.get("cache.gets").tag("cache", "posts.near").tag("result", "miss")
+                .functionCounter().count();
+    }
+
+    private static Post newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setContent("<p>Body</p>");
+        post.setAuthorId(1L);
+        return post;
+    }
+}
@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Measures time-to-ready and resident memory for each backend service.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#
+# Uses the images from docker-compose.yml, so build the variant you want to
+# measure first, e.g.
+#   docker compose build                                  # AppCDS only
+#   docker compose build --build-arg SPRING_AOT=true      # AppCDS + Spring AOT
+# The infrastructure (config server, MySQL, RabbitMQ for the refresh bus, Redis
+# for the shared post cache, and the trace collector) is started once and left
+# running, since the services' health includes it; every service is then
+# recreated from scratch for each run and timed until /actuator/health reports
+# UP. Results are printed as CSV.
+
+set -euo pipefail
+
+RUNS="${1:-3}"
+TIMEOUT_SECONDS=180
+
+# service:port, in dependency order
+SERVICES="eureka-server:8761 auth-service:8082 post-service:8083 comment-service:8084 api-gateway:8081"
+
+cd "$(dirname "$0")/.."
+
+now_ms() {
+    date +%s%3N
+}
+
+wait_until_up() {
+    local port="$1" deadline=$(( $(date +%s) + TIMEOUT_SECONDS ))
+    until curl -fs "http://localhost:${port}/actuator/health" | grep -q '"status":"UP"'; do
+        if [ "$(date +%s)" -ge "$deadline" ]; then
+            return 1
+        fi
+        sleep 0.1
+    done
+}
+
+docker compose up -d --wait config-server mysql-db rabbitmq redis otel-collector >/dev/null
+
+echo "service,run,ready_ms,memory"
+for entry in $SERVICES; do
+    service="${entry%%:*}"
+    port="${entry##*:}"
+    for run in $(seq 1 "$RUNS"); do
+        docker compose rm -sf "$service" >/dev/null 2>&1 || true
+        start=$(now_ms)
+        docker compose up -d --no-deps "$service" >/dev/null
+        if wait_until_up "$port"; then
+            ready=$(( $(now_ms) - start ))
+        else
+            ready="timeout"
+        fi
+        # Working set of the container right after it became ready
+        rss=$(docker stats --no-stream --format '{{.MemUsage}}' "$service" | awk '{print $1}')
+        echo "${service},${run},${ready},${rss}"
+    done
+    # Leave the last instance running so later services can register and route to it
+done